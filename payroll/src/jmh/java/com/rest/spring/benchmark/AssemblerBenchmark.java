@@ -0,0 +1,76 @@
+package com.rest.spring.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.rest.spring.model.Employee;
+import com.rest.spring.model.EmployeeModelAssembler;
+import com.rest.spring.model.Order;
+import com.rest.spring.model.OrderModelAssembler;
+import com.rest.spring.model.Status;
+
+//AssemblerBenchmark measures toModel() of both assemblers, with the precomputed link templates and with linkTo(methodOn(...));
+//an IN_PROGRESS order is used, so OrderModelAssembler builds its four links;
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AssemblerBenchmark {
+	
+	//the link-building mode of the assemblers (payroll.links.templates);
+	@Param({ "true", "false" })
+	public boolean templates;
+	
+	private EmployeeModelAssembler employeeAssembler;
+	private OrderModelAssembler orderAssembler;
+	
+	private Employee employee;
+	private Order order;
+	
+	@Setup
+	public void setup() {
+		//linkTo() reads the base URI from the current request, as it does in a controller;
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		
+		employeeAssembler = new EmployeeModelAssembler(templates);
+		orderAssembler = new OrderModelAssembler(templates);
+		
+		employee = new Employee("Ian", "Almeida", "Systems analyst");
+		employee.setId(42L);
+		order = new Order("iphone", Status.IN_PROGRESS);
+		order.setId(42L);
+	}
+	
+	@TearDown
+	public void tearDown() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+	
+	@Benchmark
+	public EntityModel<Employee> employeeToModel() {
+		return employeeAssembler.toModel(employee);
+	}
+	
+	@Benchmark
+	public EntityModel<Order> orderToModel() {
+		return orderAssembler.toModel(order);
+	}
+}
@@ -0,0 +1,124 @@
+package com.rest.spring.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rest.spring.model.Employee;
+
+//EmployeeNameBenchmark measures the name of Employee: getName() returns the full name, setName() splits it,
+//and serialize() writes a whole employee, which calls getName() for the "name" property;
+//the split* benchmarks run the same operations on SplitNameEmployee, the previous implementation (a join on every
+//getName() and String.split(" ") in setName()), for comparison; run with -prof gc (the default jmh.args) and compare
+//gc.alloc.rate.norm, the bytes allocated per operation;
+//the same employee is serialized again and again, like an employee kept in the "employees" cache;
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class EmployeeNameBenchmark {
+
+	//the full name given to setName(), with two and three parts;
+	@Param({ "Ian Almeida", "Maria Lucia Almeida" })
+	public String fullName;
+
+	private ObjectMapper mapper;
+	private Employee employee;
+	private SplitNameEmployee splitNameEmployee;
+
+	@Setup
+	public void setup() {
+		mapper = new ObjectMapper();
+		employee = new Employee(42L, "Ian", "Almeida", "Systems analyst");
+		splitNameEmployee = new SplitNameEmployee(42L, "Ian", "Almeida", "Systems analyst");
+	}
+
+	@Benchmark
+	public String getName() {
+		return employee.getName();
+	}
+
+	@Benchmark
+	public Employee setName() {
+		employee.setName(fullName);
+		return employee;
+	}
+
+	@Benchmark
+	public void serialize() throws IOException {
+		mapper.writeValue(OutputStream.nullOutputStream(), employee);
+	}
+
+	@Benchmark
+	public String splitGetName() {
+		return splitNameEmployee.getName();
+	}
+
+	@Benchmark
+	public SplitNameEmployee splitSetName() {
+		splitNameEmployee.setName(fullName);
+		return splitNameEmployee;
+	}
+
+	@Benchmark
+	public void splitSerialize() throws IOException {
+		mapper.writeValue(OutputStream.nullOutputStream(), splitNameEmployee);
+	}
+
+	//SplitNameEmployee has the properties of Employee, with the name handling Employee had before;
+	public static class SplitNameEmployee {
+
+		private Long id;
+		private String firstName;
+		private String lastName;
+		private String role;
+
+		public SplitNameEmployee(Long id, String firstName, String lastName, String role) {
+			this.id = id;
+			this.firstName = firstName;
+			this.lastName = lastName;
+			this.role = role;
+		}
+
+		public Long getId() {
+			return id;
+		}
+
+		public String getName() {
+			return firstName + " " + lastName;
+		}
+
+		public void setName(String name) {
+			String[] parts = name.split(" ");
+			this.firstName = parts[0];
+			this.lastName = parts[1];
+		}
+
+		public String getRole() {
+			return role;
+		}
+
+		public String getFirstName() {
+			return firstName;
+		}
+
+		public String getLastName() {
+			return lastName;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package com.rest.spring.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rest.spring.model.Order;
+import com.rest.spring.model.OrderModelAssembler;
+import com.rest.spring.model.Status;
+
+//HalSerializationBenchmark measures the HAL serialization of a CollectionModel of orders, as GET /orders writes it;
+//the output is thrown away, so only the serialization itself is measured (its allocations are seen with -prof gc);
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class HalSerializationBenchmark {
+	
+	//number of orders of the collection;
+	@Param({ "10", "1000", "100000" })
+	public int size;
+	
+	private ObjectMapper mapper;
+	private CollectionModel<EntityModel<Order>> model;
+	
+	@Setup
+	public void setup() {
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		
+		//the same HAL configuration that Spring HATEOAS gives to the ObjectMapper of application/hal+json;
+		mapper = new ObjectMapper();
+		mapper.registerModule(new Jackson2HalModule());
+		mapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(new DefaultLinkRelationProvider(),
+				CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+		
+		OrderModelAssembler assembler = new OrderModelAssembler(true);
+		List<EntityModel<Order>> orders = new ArrayList<>(size);
+		for(long id = 1; id <= size; id++) {
+			Order order = new Order("Order " + id, id % 2 == 0 ? Status.IN_PROGRESS : Status.COMPLETED);
+			order.setId(id);
+			orders.add(assembler.toModel(order));
+		}
+		model = CollectionModel.of(orders);
+	}
+	
+	@TearDown
+	public void tearDown() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+	
+	@Benchmark
+	public void serialize() throws IOException {
+		mapper.writeValue(OutputStream.nullOutputStream(), model);
+	}
+}
@@ -0,0 +1,56 @@
+package com.rest.spring.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.rest.spring.PayrollApplication;
+
+//StartupBenchmark measures the time from SpringApplication.run() until the application is ready to take requests,
+//with the default profile and with the fast-start profile "fast" (lazy beans, deferred repositories and seeding);
+//every measurement is the first start of a new JVM (one shot per fork, no warmup), as an instance started by autoscaling;
+//the time of the JVM itself and of class loading before main() is not included, compare the CDS archive of the
+//fast-start Maven profile with the startup time logged by Spring ("Started PayrollApplication in ...");
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+	//the Spring profile the application is started with;
+	@Param({ "default", "fast" })
+	public String profile;
+
+	//the started application, closed after the measurement, so its shutdown is not measured;
+	private ConfigurableApplicationContext context;
+
+	@Benchmark
+	public ConfigurableApplicationContext start() {
+		context = SpringApplication.run(PayrollApplication.class,
+				"--server.port=0", "--spring.profiles.active=" + profile);
+		return context;
+	}
+
+	@TearDown(Level.Invocation)
+	public void stop() {
+		if(context != null) {
+			context.close();
+			context = null;
+		}
+	}
+}
@@ -1,5 +1,8 @@
 package com.rest.spring;
 
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -27,32 +30,45 @@ public class LoadDatabase {
 	
 	//This method produces a bean that will be managed by Spring container;
 	//It will run in SpringBootApplicaiton when it is detected or scanned by Spring;
-	//it will log a string message and it will run in runtime;			
+	//it will log a string message and it will run in runtime;
+	//with payroll.seed.deferred=true (profile "fast"), the rows are loaded on a background thread, so the application
+	//is ready (and accepts requests) without waiting for them;
 	@Bean
-	CommandLineRunner initDatabase(EmployeeRepository employeeRepository, OrderRepository orderRepository) {
+	CommandLineRunner initDatabase(EmployeeRepository employeeRepository, OrderRepository orderRepository,
+			@Value("${payroll.seed.deferred:false}") boolean deferred) {
 		
 		//return args refers to main method args. So everything is defined between "{}" will be displayed in runtime in console;
 		return args -> {
-			
-			//save() saves and returns a saved entity;
-			employeeRepository.save(new Employee("Maria Lucia", "Almeida", "Teacher"));
-			employeeRepository.save(new Employee("Ian", "Almeida", "Systems analyst"));
-			
-			//findAll() returns all the instances (entities) of the  Employee type;
-			//forEach() performs an action in each element and return a message for each employee;
-			// -> () takes a employee and returns a employee with a INFO string;
-			employeeRepository.findAll().forEach(employee -> log.info("Preloaded " + employee));
-			
-			//save() saves and returns a saved entity;
-			orderRepository.save(new Order("MacBook Pro", Status.COMPLETED));
-			orderRepository.save(new Order("iphone", Status.IN_PROGRESS));
-			
-			//idem as before
-			orderRepository.findAll().forEach(order -> log.info("Preloaded " +order)
-			);	
-			
+			if(deferred) {
+				Thread.ofVirtual().name("seed").start(() -> seed(employeeRepository, orderRepository));
+			} else {
+				seed(employeeRepository, orderRepository);
+			}
 		};
 	}
 	
+	//seed() loads the sample rows, one saveAll() per table (a JDBC batch each), and logs the saved entities as they are
+	//returned by saveAll(), without reading the tables again;
+	private static void seed(EmployeeRepository employeeRepository, OrderRepository orderRepository) {
+		
+		//a persistent database (profile "prod") keeps the rows of the previous runs; they are only loaded once;
+		if(employeeRepository.count() > 0 || orderRepository.count() > 0) {
+			return;
+		}
+		
+		//saveAll() saves and returns the saved entities;
+		//forEach() performs an action in each element and return a message for each employee;
+		employeeRepository.saveAll(List.of(
+				new Employee("Maria Lucia", "Almeida", "Teacher"),
+				new Employee("Ian", "Almeida", "Systems analyst")))
+				.forEach(employee -> log.info("Preloaded " + employee));
+		
+		//idem as before
+		orderRepository.saveAll(List.of(
+				new Order("MacBook Pro", Status.COMPLETED),
+				new Order("iphone", Status.IN_PROGRESS)))
+				.forEach(order -> log.info("Preloaded " + order));
+	}
+	
 }
 
@@ -2,8 +2,11 @@ package com.rest.spring;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
 
 @SpringBootApplication
+//@EnableCaching turns on the @Cacheable and @CacheEvict annotations of the repositories;
+@EnableCaching
 public class PayrollApplication {
 
 	public static void main(String[] args) {
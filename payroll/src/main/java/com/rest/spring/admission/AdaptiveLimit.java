@@ -0,0 +1,70 @@
+package com.rest.spring.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+//AdaptiveLimit is the number of write requests handled at the same time, adjusted to their latency (AIMD):
+//while the latency stays within tolerance times the lowest latency of the current window, the limit grows by one each
+//time a request completes with at least half of the limit in use; above it, the database (or the pool in front of it)
+//is queueing, and the limit shrinks by a tenth; the lowest latency is measured again in every window, so that the limit
+//follows a database that got slower or faster; every field is an atomic, nothing blocks;
+public class AdaptiveLimit {
+
+	private final int min;
+	private final int max;
+	private final double tolerance;
+	private final long windowNanos;
+
+	private final AtomicInteger limit;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicLong minLatency = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicLong windowEnd;
+
+	public AdaptiveLimit(int initial, int min, int max, double tolerance, long windowNanos, long now) {
+		this.min = min;
+		this.max = max;
+		this.tolerance = tolerance;
+		this.windowNanos = windowNanos;
+		this.limit = new AtomicInteger(Math.clamp(initial, min, max));
+		this.windowEnd = new AtomicLong(now + windowNanos);
+	}
+
+	//tryAcquire() takes a slot if fewer than limit requests are in flight; a slot taken must be released;
+	public boolean tryAcquire() {
+		while(true) {
+			int current = inFlight.get();
+			if(current >= limit.get()) {
+				return false;
+			}
+			if(inFlight.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	//release() gives the slot back with the latency of the request, and adjusts the limit;
+	public void release(long latencyNanos, long now) {
+		int used = inFlight.getAndDecrement();
+
+		long end = windowEnd.get();
+		if(now >= end && windowEnd.compareAndSet(end, now + windowNanos)) {
+			minLatency.set(latencyNanos);
+		} else {
+			minLatency.accumulateAndGet(latencyNanos, Math::min);
+		}
+
+		if(latencyNanos > minLatency.get() * tolerance) {
+			limit.updateAndGet(current -> Math.max(min, current - Math.max(1, current / 10)));
+		} else if(used * 2 >= limit.get()) {
+			limit.updateAndGet(current -> Math.min(max, current + 1));
+		}
+	}
+
+	public int getLimit() {
+		return limit.get();
+	}
+
+	public int getInFlight() {
+		return inFlight.get();
+	}
+}
@@ -0,0 +1,30 @@
+package com.rest.spring.admission;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+//AdmissionConfiguration puts the AdmissionInterceptor in front of the handlers of EmployeeController and OrderController;
+//the interceptor itself lets the reads through; the bulk writes (the batches and the imports) are left out: one of them
+//is thousands of rows in one long request, it would hold a concurrency slot for its whole duration and its latency would
+//shrink the limit of the single writes; BatchWriter writes them in chunks, one short transaction at a time, instead;
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "payroll.admission.enabled", matchIfMissing = true)
+public class AdmissionConfiguration implements WebMvcConfigurer {
+	
+	private final AdmissionInterceptor interceptor;
+	
+	public AdmissionConfiguration(AdmissionInterceptor interceptor) {
+		this.interceptor = interceptor;
+	}
+	
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(interceptor)
+				.addPathPatterns("/employees/**", "/orders/**")
+				.excludePathPatterns("/employees/batch", "/employees/import", "/orders/batch", "/orders/import");
+	}
+}
@@ -0,0 +1,125 @@
+package com.rest.spring.admission;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import com.rest.spring.exception.AdmissionRejectedException;
+
+//AdmissionInterceptor runs before the write handlers of EmployeeController and OrderController (POST, PUT and DELETE,
+//see AdmissionConfiguration) and refuses the request with a 429 when its client is over its rate (TokenBuckets) or when
+//too many writes are already running (AdaptiveLimit); the reads are never refused, they are what the limits protect:
+//bursts of writes would otherwise take every connection of the JDBC pool;
+//the client is the API key (payroll.admission.client-header) or, without one, the remote address;
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "payroll.admission.enabled", matchIfMissing = true)
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+	//the start of a request that took a slot of the AdaptiveLimit, released in afterCompletion();
+	private static final String START = AdmissionInterceptor.class.getName() + ".start";
+
+	private final TokenBuckets buckets;
+	private final AdaptiveLimit limit;
+	private final String clientHeader;
+	private final Counter rateRejected;
+	private final Counter concurrencyRejected;
+	private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "admission-sweeper");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public AdmissionInterceptor(MeterRegistry registry,
+			@Value("${payroll.admission.client-header:X-API-Key}") String clientHeader,
+			@Value("${payroll.admission.rate:50}") double rate,
+			@Value("${payroll.admission.burst:100}") int burst,
+			@Value("${payroll.admission.stripes:16}") int stripes,
+			@Value("${payroll.admission.concurrency.initial:8}") int initial,
+			@Value("${payroll.admission.concurrency.min:2}") int min,
+			@Value("${payroll.admission.concurrency.max:32}") int max,
+			@Value("${payroll.admission.concurrency.tolerance:2.0}") double tolerance,
+			@Value("${payroll.admission.concurrency.window:10s}") Duration window) {
+		this.clientHeader = clientHeader;
+		this.buckets = new TokenBuckets(stripes, rate, burst);
+		this.limit = new AdaptiveLimit(initial, min, max, tolerance, window.toNanos(), System.nanoTime());
+		this.rateRejected = rejected(registry, "rate");
+		this.concurrencyRejected = rejected(registry, "concurrency");
+		Gauge.builder("payroll.admission.clients", buckets, TokenBuckets::size)
+				.description("Clients with a token bucket")
+				.register(registry);
+		Gauge.builder("payroll.admission.limit", limit, AdaptiveLimit::getLimit)
+				.description("Write requests allowed at the same time")
+				.register(registry);
+		Gauge.builder("payroll.admission.in-flight", limit, AdaptiveLimit::getInFlight)
+				.description("Write requests running")
+				.register(registry);
+
+		//the buckets of the clients that stopped sending are dropped now and then, they are full anyway;
+		sweeper.scheduleWithFixedDelay(() -> buckets.sweep(System.nanoTime()), 1, 1, TimeUnit.MINUTES);
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		HttpMethod method = HttpMethod.valueOf(request.getMethod());
+		if(method != HttpMethod.POST && method != HttpMethod.PUT && method != HttpMethod.DELETE) {
+			return true;
+		}
+
+		long now = System.nanoTime();
+		long wait = buckets.tryAcquire(client(request), now);
+		if(wait > 0) {
+			rateRejected.increment();
+			throw new AdmissionRejectedException("Too many requests, retry later",
+					Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1)));
+		}
+		if(!limit.tryAcquire()) {
+			concurrencyRejected.increment();
+			throw new AdmissionRejectedException("Too many requests in progress, retry later", 1);
+		}
+		request.setAttribute(START, now);
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		if(request.getAttribute(START) instanceof Long start) {
+			request.removeAttribute(START);
+			long now = System.nanoTime();
+			limit.release(now - start, now);
+		}
+	}
+
+	@PreDestroy
+	public void close() {
+		sweeper.shutdownNow();
+	}
+
+	private String client(HttpServletRequest request) {
+		String key = request.getHeader(clientHeader);
+		return key != null && !key.isBlank() ? "key:" + key : "address:" + request.getRemoteAddr();
+	}
+
+	private static Counter rejected(MeterRegistry registry, String reason) {
+		return Counter.builder("payroll.admission.rejected")
+				.description("Write requests refused with a 429")
+				.tag("reason", reason)
+				.register(registry);
+	}
+}
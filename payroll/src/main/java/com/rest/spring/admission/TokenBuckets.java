@@ -0,0 +1,67 @@
+package com.rest.spring.admission;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+//TokenBuckets is the rate limit of each client: a bucket of burst tokens refilled at rate tokens per second;
+//a bucket is one AtomicLong, the time at which it will be full again (the "theoretical arrival time" of GCRA, the
+//same limit as a token bucket without a refill task): taking a token moves it one interval forward with a CAS, so the
+//buckets are lock-free; they are kept in a fixed number of stripes (ConcurrentHashMaps chosen by the hash of the
+//client), so that the sweep of the idle clients only holds one small map at a time;
+public class TokenBuckets {
+
+	private final ConcurrentHashMap<String, AtomicLong>[] stripes;
+	private final long intervalNanos;
+	private final long toleranceNanos;
+
+	@SuppressWarnings("unchecked")
+	public TokenBuckets(int stripes, double rate, int burst) {
+		//a power of two, so that the stripe of a client is a mask of its hash;
+		int count = Integer.highestOneBit(Math.max(1, stripes - 1) << 1);
+		this.stripes = new ConcurrentHashMap[count];
+		for(int i = 0; i < count; i++) {
+			this.stripes[i] = new ConcurrentHashMap<>();
+		}
+		this.intervalNanos = (long) (1_000_000_000L / rate);
+		//a full bucket accepts burst requests at once: the burst-th moves the time burst - 1 intervals ahead;
+		this.toleranceNanos = intervalNanos * (Math.max(1, burst) - 1);
+	}
+
+	//tryAcquire() takes one token of the client and returns 0, or returns the nanoseconds to wait for the next token;
+	public long tryAcquire(String client, long now) {
+		AtomicLong bucket = stripe(client).computeIfAbsent(client, key -> new AtomicLong(now));
+		while(true) {
+			long current = bucket.get();
+			long full = Math.max(current, now);
+			long wait = full - now - toleranceNanos;
+			if(wait > 0) {
+				return wait;
+			}
+			if(bucket.compareAndSet(current, full + intervalNanos)) {
+				return 0;
+			}
+		}
+	}
+
+	//sweep() forgets the clients whose bucket is full again (they have not been seen for a while): a new bucket would be
+	//the same; a request racing with the sweep may get a new full bucket, which only errs on the side of the client;
+	public void sweep(long now) {
+		for(ConcurrentHashMap<String, AtomicLong> stripe : stripes) {
+			stripe.values().removeIf(bucket -> bucket.get() <= now);
+		}
+	}
+
+	//size() is the number of clients with a bucket;
+	public int size() {
+		int size = 0;
+		for(ConcurrentHashMap<String, AtomicLong> stripe : stripes) {
+			size += stripe.size();
+		}
+		return size;
+	}
+
+	private ConcurrentHashMap<String, AtomicLong> stripe(String client) {
+		int hash = client.hashCode();
+		return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+	}
+}
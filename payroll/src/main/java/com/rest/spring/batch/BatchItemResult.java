@@ -0,0 +1,60 @@
+package com.rest.spring.batch;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+//BatchItemResult is the result of one item of a bulk request: its position in the request, what happened to it,
+//the id of the saved entity or the reason of the failure;
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+	
+	public enum Outcome {
+		CREATED, //
+		UPDATED, //
+		FAILED
+	}
+	
+	private final int index;
+	private final Outcome outcome;
+	private final Long id;
+	private final String error;
+	
+	private BatchItemResult(int index, Outcome outcome, Long id, String error) {
+		this.index = index;
+		this.outcome = outcome;
+		this.id = id;
+		this.error = error;
+	}
+	
+	//saved() compares the id sent by the client with the id of the saved entity: the same id means an update;
+	//no id, or an id that did not exist (it gets a new one, like the upsert of replaceEmployee), means a creation;
+	public static BatchItemResult saved(int index, Long requestedId, Long savedId) {
+		Outcome outcome = requestedId != null && requestedId.equals(savedId) ? Outcome.UPDATED : Outcome.CREATED;
+		return new BatchItemResult(index, outcome, savedId, null);
+	}
+	
+	public static BatchItemResult failed(int index, String error) {
+		return new BatchItemResult(index, Outcome.FAILED, null, error);
+	}
+	
+	public int getIndex() {
+		return index;
+	}
+	
+	public Outcome getOutcome() {
+		return outcome;
+	}
+	
+	public Long getId() {
+		return id;
+	}
+	
+	public String getError() {
+		return error;
+	}
+	
+	@Override
+	public String toString() {
+		return "BatchItemResult{" + "index=" + this.index + ", outcome=" + this.outcome + ", id=" + this.id
+				+ ", error='" + this.error + '\'' + '}';
+	}
+}
@@ -0,0 +1,124 @@
+package com.rest.spring.batch;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+//BatchWriter saves the items of a bulk request in chunks, one transaction per chunk;
+//inside a chunk the inserts and updates are sent to the database as JDBC batches (hibernate.jdbc.batch_size),
+//so a chunk of 50 employees costs a few round trips instead of 50;
+@Component
+public class BatchWriter {
+	
+	private static final Logger log = LoggerFactory.getLogger(BatchWriter.class);
+	
+	//the persistence context is flushed and cleared after each chunk, so it does not grow with the size of the request;
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	private final TransactionTemplate transactionTemplate;
+	
+	//the number of items of a chunk; the same as the JDBC batch size, so a chunk is flushed as one batch per statement;
+	private final int chunkSize;
+	
+	public BatchWriter(PlatformTransactionManager transactionManager,
+			@Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int chunkSize) {
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.chunkSize = chunkSize;
+	}
+	
+	//write() reads the items (a JSON array or NDJSON being parsed), prepares each one and saves them chunk by chunk;
+	//it returns one result per item, in the order of the request. An item that can not be read stops the request;
+	public <T> List<BatchItemResult> write(Iterator<T> items, JpaRepository<T, Long> repository, Consumer<T> prepare,
+			Function<T, Long> getId, BiConsumer<T, Long> setId) {
+		
+		List<BatchItemResult> results = new ArrayList<>();
+		write(items, repository, prepare, getId, setId, results::add);
+		return results;
+	}
+	
+	//write() with a consumer of the results, which gets them chunk by chunk instead of a list of all of them: the imports
+	//(see ImportSummary) only count them, so their memory does not grow with the number of items;
+	public <T> void write(Iterator<T> items, JpaRepository<T, Long> repository, Consumer<T> prepare,
+			Function<T, Long> getId, BiConsumer<T, Long> setId, Consumer<BatchItemResult> results) {
+		
+		int index = 0;
+		boolean more = true;
+		
+		while(more) {
+			List<T> chunk = new ArrayList<>(chunkSize);
+			String readError = null;
+			try {
+				while(chunk.size() < chunkSize && (more = items.hasNext())) {
+					T item = items.next();
+					prepare.accept(item);
+					chunk.add(item);
+				}
+			} catch (RuntimeException e) {
+				readError = "Could not read item: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+				more = false;
+			}
+			
+			if(!chunk.isEmpty()) {
+				writeChunk(index, chunk, repository, getId, setId).forEach(results);
+				index += chunk.size();
+			}
+			if(readError != null) {
+				results.accept(BatchItemResult.failed(index, readError));
+			}
+		}
+	}
+	
+	//writeChunk() saves a chunk in one transaction; if the transaction fails, the items are saved again one by one,
+	//each one in its own transaction, so only the items that really fail are reported as FAILED;
+	private <T> List<BatchItemResult> writeChunk(int first, List<T> chunk, JpaRepository<T, Long> repository,
+			Function<T, Long> getId, BiConsumer<T, Long> setId) {
+		
+		List<Long> requestedIds = new ArrayList<>(chunk.size());
+		chunk.forEach(item -> requestedIds.add(getId.apply(item)));
+		
+		List<BatchItemResult> results = new ArrayList<>(chunk.size());
+		try {
+			List<T> saved = transactionTemplate.execute(status -> {
+				List<T> entities = repository.saveAll(chunk);
+				entityManager.flush();
+				entityManager.clear();
+				return entities;
+			});
+			for(int i = 0; i < chunk.size(); i++) {
+				results.add(BatchItemResult.saved(first + i, requestedIds.get(i), getId.apply(saved.get(i))));
+			}
+			return results;
+		} catch (RuntimeException e) {
+			log.info("Chunk starting at item " + first + " failed, saving its items one by one: " + e.getMessage());
+		}
+		
+		for(int i = 0; i < chunk.size(); i++) {
+			T item = chunk.get(i);
+			//persist() of the failed chunk may have given an id to the item, so the id sent by the client is put back;
+			setId.accept(item, requestedIds.get(i));
+			try {
+				T saved = transactionTemplate.execute(status -> repository.saveAndFlush(item));
+				results.add(BatchItemResult.saved(first + i, requestedIds.get(i), getId.apply(saved)));
+			} catch (RuntimeException e) {
+				results.add(BatchItemResult.failed(first + i, NestedExceptionUtils.getMostSpecificCause(e).getMessage()));
+			}
+		}
+		return results;
+	}
+}
@@ -0,0 +1,54 @@
+package com.rest.spring.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+//ImportSummary is the response of an import (POST /employees/import and /orders/import): instead of one result per item,
+//like the batch endpoints, it counts the created, updated and failed items and keeps the first failures only, so that
+//an import of millions of rows answers with a small document and never holds its results in memory;
+public class ImportSummary implements Consumer<BatchItemResult> {
+	
+	//the failures kept in the response;
+	private static final int MAX_ERRORS = 100;
+	
+	private long created;
+	private long updated;
+	private long failed;
+	private final List<BatchItemResult> errors = new ArrayList<>();
+	
+	@Override
+	public void accept(BatchItemResult result) {
+		switch(result.getOutcome()) {
+			case CREATED -> created++;
+			case UPDATED -> updated++;
+			case FAILED -> {
+				failed++;
+				if(errors.size() < MAX_ERRORS) {
+					errors.add(result);
+				}
+			}
+		}
+	}
+	
+	public long getCreated() {
+		return created;
+	}
+	
+	public long getUpdated() {
+		return updated;
+	}
+	
+	public long getFailed() {
+		return failed;
+	}
+	
+	public List<BatchItemResult> getErrors() {
+		return errors;
+	}
+	
+	@Override
+	public String toString() {
+		return "ImportSummary{" + "created=" + this.created + ", updated=" + this.updated + ", failed=" + this.failed + '}';
+	}
+}
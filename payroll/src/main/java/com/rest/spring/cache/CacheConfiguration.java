@@ -0,0 +1,47 @@
+package com.rest.spring.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+//CacheConfiguration is the CacheManager of the repositories ("employees" and "orders"), in place of the one of Spring Boot:
+//the same Caffeine caches (spring.cache.cache-names and spring.cache.caffeine.spec), with three changes against stale entries:
+//- the puts and evictions made in a transaction happen after its commit (TransactionAwareCacheManagerProxy): a transition
+//  evicts its order once the new status is visible, not before, when a reader could still load and cache the old row;
+//- a reader that loaded a row before a commit can not put it back after the eviction of that commit (LeasedCaffeineCache);
+//- the orders, which the transitions and the workers change all the time, expire sooner (payroll.cache.orders.spec),
+//  to keep fewer of them in memory;
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfiguration {
+	
+	@Bean
+	public CacheManager cacheManager(CacheProperties properties,
+			@Value("${payroll.cache.orders.spec:maximumSize=10000,expireAfterWrite=30s,recordStats}") String ordersSpec) {
+		CaffeineCacheManager caffeine = new CaffeineCacheManager() {
+			
+			@Override
+			protected org.springframework.cache.Cache adaptCaffeineCache(String name, Cache<Object, Object> cache) {
+				return new LeasedCaffeineCache(name, cache, isAllowNullValues());
+			}
+		};
+		if(StringUtils.hasText(properties.getCaffeine().getSpec())) {
+			caffeine.setCacheSpecification(properties.getCaffeine().getSpec());
+		}
+		if(!properties.getCacheNames().isEmpty()) {
+			caffeine.setCacheNames(properties.getCacheNames());
+		}
+		//after setCacheNames(), which creates every named cache with the common specification;
+		caffeine.registerCustomCache("orders", Caffeine.from(ordersSpec).build());
+		return new TransactionAwareCacheManagerProxy(caffeine);
+	}
+}
@@ -0,0 +1,119 @@
+package com.rest.spring.cache;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+//LeasedCaffeineCache is a CaffeineCache that only keeps the values read through it while nothing was written in between,
+//which closes the race of the cache-aside reads:
+//- a miss gives the reading thread a lease: the key and the generation of the cache at that moment;
+//- every eviction (and every put that does not come from a lease) increments the generation before removing the entries;
+//- the put of a @Cacheable read is applied only if its lease is for the same key and the generation did not change:
+//  a reader that loaded the row before a commit and tries to put it back after the eviction of that commit is ignored,
+//  the next read goes to the database and caches the new row;
+//the check and the put are done under the same lock as the increment, so an eviction can not slip between them;
+//the expiry of the entries (spring.cache.caffeine.spec) is then only a bound on the memory, not on the staleness;
+class LeasedCaffeineCache extends CaffeineCache {
+
+	private record Lease(Object key, long generation) {
+	}
+
+	//the lease of the last miss of each thread: @Cacheable puts the loaded value on the same thread right after the miss;
+	private static final ThreadLocal<Lease> LEASE = new ThreadLocal<>();
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private volatile long generation;
+
+	LeasedCaffeineCache(String name, Cache<Object, Object> cache, boolean allowNullValues) {
+		super(name, cache, allowNullValues);
+	}
+
+	@Override
+	protected Object lookup(Object key) {
+		long current = generation;
+		Object value = super.lookup(key);
+		if(value == null) {
+			LEASE.set(new Lease(key, current));
+		}
+		return value;
+	}
+
+	@Override
+	public void put(Object key, Object value) {
+		lock.lock();
+		try {
+			if(leased(key)) {
+				super.put(key, value);
+			}
+			else {
+				//a value that was not read through the cache: it may be newer than what a reader is about to put, so the
+				//key is evicted instead, and the next read caches it;
+				generation++;
+				super.evict(key);
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public ValueWrapper putIfAbsent(Object key, Object value) {
+		lock.lock();
+		try {
+			if(leased(key)) {
+				return super.putIfAbsent(key, value);
+			}
+			generation++;
+			super.evict(key);
+			return null;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void evict(Object key) {
+		evictIfPresent(key);
+	}
+
+	@Override
+	public boolean evictIfPresent(Object key) {
+		lock.lock();
+		try {
+			generation++;
+			return super.evictIfPresent(key);
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void clear() {
+		invalidate();
+	}
+
+	@Override
+	public boolean invalidate() {
+		lock.lock();
+		try {
+			generation++;
+			return super.invalidate();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	//leased() consumes the lease of the current thread and tells whether it allows a put of the key;
+	private boolean leased(Object key) {
+		Lease lease = LEASE.get();
+		LEASE.remove();
+		return lease != null && lease.key().equals(key) && lease.generation() == generation;
+	}
+}
@@ -0,0 +1,35 @@
+package com.rest.spring.compact;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+//CompactConfiguration adds the CBOR message converter used by the compact representation in CBOR;
+//the compact representation in JSON needs nothing: the JSON converter already writes application/*+json;
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class CompactConfiguration implements WebMvcConfigurer {
+	
+	private final Jackson2ObjectMapperBuilder builder;
+	
+	//the builder of Spring Boot (a new one for each injection point) has the same settings as the JSON ObjectMapper;
+	public CompactConfiguration(Jackson2ObjectMapperBuilder builder) {
+		this.builder = builder;
+	}
+	
+	@Override
+	public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+		MappingJackson2CborHttpMessageConverter cbor =
+				new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+		cbor.setSupportedMediaTypes(List.of(CompactMediaTypes.COMPACT_CBOR, MediaType.APPLICATION_CBOR));
+		converters.add(cbor);
+	}
+}
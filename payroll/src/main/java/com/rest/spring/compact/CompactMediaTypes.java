@@ -0,0 +1,19 @@
+package com.rest.spring.compact;
+
+import org.springframework.http.MediaType;
+
+//CompactMediaTypes are the media types of the compact representation of the collections (see CompactPage);
+//a client asks for it with the Accept header, e.g. "Accept: application/vnd.payroll.compact+json";
+public final class CompactMediaTypes {
+	
+	//the compact representation in JSON;
+	public static final String COMPACT_JSON_VALUE = "application/vnd.payroll.compact+json";
+	public static final MediaType COMPACT_JSON = MediaType.parseMediaType(COMPACT_JSON_VALUE);
+	
+	//the same representation in CBOR, a binary JSON: no quotes around the names and numbers in binary, so it is smaller
+	//and faster to parse; it is not compressed by the server, it is already compact;
+	public static final String COMPACT_CBOR_VALUE = "application/vnd.payroll.compact+cbor";
+	public static final MediaType COMPACT_CBOR = MediaType.parseMediaType(COMPACT_CBOR_VALUE);
+	
+	private CompactMediaTypes() {}
+}
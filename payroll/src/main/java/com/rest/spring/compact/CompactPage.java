@@ -0,0 +1,57 @@
+package com.rest.spring.compact;
+
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+//CompactPage is a keyset page of a collection without the links of each entity: the HAL representation repeats
+//_links.self and _links.employees (or orders) in every element, which roughly doubles the size of a big page;
+//here the links of the entities are given once, as URI templates, e.g. {"self": "http://localhost:8080/employees/{id}"},
+//and the client fills {id} with the id of the entity. next and prev are the links of the other pages, if they exist;
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CompactPage<T> {
+	
+	//the full name of an employee is not written: it is firstName and lastName again, which the client can join;
+	@JsonIgnoreProperties("name")
+	private final List<T> content;
+	private final Map<String, String> templates;
+	private final String self;
+	private final String next;
+	private final String prev;
+	
+	public CompactPage(List<T> content, Map<String, String> templates, String self, String next, String prev) {
+		this.content = content;
+		this.templates = templates;
+		this.self = self;
+		this.next = next;
+		this.prev = prev;
+	}
+	
+	public List<T> getContent() {
+		return content;
+	}
+	
+	public Map<String, String> getTemplates() {
+		return templates;
+	}
+	
+	public String getSelf() {
+		return self;
+	}
+	
+	public String getNext() {
+		return next;
+	}
+	
+	public String getPrev() {
+		return prev;
+	}
+	
+	@Override
+	public String toString() {
+		return "CompactPage{" + "size=" + this.content.size() + ", self='" + this.self + '\'' + ", next='" + this.next + '\''
+				+ ", prev='" + this.prev + '\'' + '}';
+	}
+}
@@ -1,12 +1,19 @@
 package com.rest.spring.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
-import java.util.stream.Collector;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Pageable;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -14,19 +21,35 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rest.spring.batch.BatchItemResult;
+import com.rest.spring.batch.BatchWriter;
+import com.rest.spring.batch.ImportSummary;
+import com.rest.spring.compact.CompactMediaTypes;
+import com.rest.spring.compact.CompactPage;
+import com.rest.spring.etag.CollectionVersions;
+import com.rest.spring.etag.EntityTags;
 import com.rest.spring.model.Employee;
 import com.rest.spring.model.EmployeeModelAssembler;
+import com.rest.spring.model.KeysetSlice;
 import com.rest.spring.repository.EmployeeRepository;
+import com.rest.spring.stream.CsvFormat;
+import com.rest.spring.stream.NdjsonStreamer;
 import com.rest.spring.exception.EmployeeNotFoundException;
 
 //This annotation is a junction of 2 others: @controller and @ResponseBody;
 //@Controller means that Spring will see the class as a controller in MVC layer, and @ResponseBody means that
 //a method return value (data) must be bound to the web response body;
 @RestController
+//the servlet controllers are only used by a servlet application; the reactive application (profile "reactive") has its own;
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class EmployeeController {
 	
 	
@@ -36,10 +59,32 @@ public class EmployeeController {
 	//A dependency injection is done implicitly by constructor;
 	private final EmployeeModelAssembler assembler;
 	
+	//writes the streaming mode of the collection;
+	private final NdjsonStreamer streamer;
+	
+	//saves the employees of the bulk endpoint, and reads them from the body;
+	private final BatchWriter batchWriter;
+	private final ObjectMapper objectMapper;
+	
+	//the version of the collection, for its ETag;
+	private final CollectionVersions versions;
+	
+	//writes and reads the CSV of the export and import;
+	private final CsvFormat csv;
+	
+	//the columns of the CSV export;
+	private static final String[] CSV_COLUMNS = { "id", "firstName", "lastName", "role" };
+	
 	//The variable repository is initialized;
-	public EmployeeController(EmployeeRepository repository, EmployeeModelAssembler assembler) {
+	public EmployeeController(EmployeeRepository repository, EmployeeModelAssembler assembler, NdjsonStreamer streamer,
+			BatchWriter batchWriter, ObjectMapper objectMapper, CollectionVersions versions, CsvFormat csv) {
 		this.repository = repository;	
 		this.assembler = assembler;
+		this.streamer = streamer;
+		this.batchWriter = batchWriter;
+		this.objectMapper = objectMapper;
+		this.versions = versions;
+		this.csv = csv;
 	}
 	
 	//@GetMapping maps HTTP GET requests onto specific handler methods;
@@ -47,38 +92,91 @@ public class EmployeeController {
 
 	@GetMapping("/employees")
 	//CollectionModel allows to create a wrapper (container) easily to collect a EntityModel that wraps a domain object(Employee);
-	public CollectionModel<EntityModel<Employee>> all()	{
+	//The collection is paginated by keyset on id: after=id returns the page that follows id, before=id the page that precedes it,
+	//and size the number of employees in a page. Without parameters, the first page is returned;
+	//The ETag of the collection is a counter incremented by every write; If-None-Match with the current ETag returns 304
+	//(Not Modified) before any query. checkNotModified() also adds the ETag header to a full response;
+	public CollectionModel<EntityModel<Employee>> all(@RequestParam(required = false) Long after,
+			@RequestParam(required = false) Long before, @RequestParam(required = false) Integer size, WebRequest request) {
 		
-		//Here employees receives instances of Employee type in a sequential stream;
-		List<EntityModel<Employee>> employees = repository.findAll().stream()
-				
-				//withRel() takes a string as argument to create a Link object that correspond to the root aggregate;
-				//linkTo() create a builder to build Link objects that point to MVC controllers;				
-				//To do it, linkTo() uses a wrapper by methodOn that contain a controller method, named all();
-				//withSelfRel() creates a Link that corresponds to a resource as a self link;
-				//Once these links have been created, of() creates a new EntityModel with links added to it (employee);
-				// This new EntityModel with links is the result returned by the -> who took employee as input;
-				//map() returns a sequence of objects or entities (a new stream containing such entities);	
-				//this new stream is accumulated in a object Collector and returned into a new List;
-				//This Collector is used by findAll() to return all the entities of the type Employee that is a collection (List);  
-				/*.map(employee -> EntityModel.of(employee,
-						linkTo(methodOn(EmployeeController.class).one(employee.getId())).withSelfRel(),
-						linkTo(methodOn(EmployeeController.class).all()).withRel("employees")))
-						.collect(Collectors.toList()); 	*/
-				
-			
-				//assembler now has the responsibility to create links and to convert employees object into EntityModel;
-				.map(assembler::toModel).collect(Collectors.toList());
+		if(request.checkNotModified(versions.tag(CollectionVersions.EMPLOYEES))) {
+			return null;
+		}
 		
-				
+		int pageSize = KeysetSlice.size(size);
 		
-		//withSelfRel() creates a Link that correspond to a resource as a self link;
-		//linkTo() create a builder to build Link objects that point to MVC controllers;
-		//To do it, linkTo() uses a wrapper by methodOn that contain a controller method, named all();
-		//Once the link have been created, of() creates a CollectionModel object with a link added to it (employee);
-		//a collection of entities is returned with links;
-		return CollectionModel.of(employees,
-				linkTo(methodOn(EmployeeController.class).all()).withSelfRel());		
+		//assembler now has the responsibility to create links and to convert employees object into EntityModel;
+		//it also adds the self, next and prev links of the page;
+		return assembler.toPagedModel(page(after, before, pageSize), after, before, pageSize);
+	}
+	
+	//This method is the compact mode of the collection, chosen by the header "Accept: application/vnd.payroll.compact+json"
+	//(or +cbor for the binary form): the same page, without the links of each employee (see CompactPage);
+	@GetMapping(value = "/employees", produces = { CompactMediaTypes.COMPACT_JSON_VALUE, CompactMediaTypes.COMPACT_CBOR_VALUE })
+	public CompactPage<Employee> allCompact(@RequestParam(required = false) Long after,
+			@RequestParam(required = false) Long before, @RequestParam(required = false) Integer size, WebRequest request) {
+		
+		if(request.checkNotModified(versions.tag(CollectionVersions.EMPLOYEES, "compact"))) {
+			return null;
+		}
+		
+		int pageSize = KeysetSlice.size(size);
+		return assembler.toCompactPage(page(after, before, pageSize), after, before, pageSize);
+	}
+	
+	//Here the page is read from database with one extra row that only tells if there is a next (or previous) page;
+	//the database uses the primary key index to find the cursor, so every page costs the same, even the last one;
+	private KeysetSlice<Employee> page(Long after, Long before, int pageSize) {
+		return before != null
+				? KeysetSlice.backward(repository.findByIdLessThan(before, KeysetSlice.descending(pageSize)), pageSize)
+				: KeysetSlice.forward(repository.findByIdGreaterThan(after != null ? after : Long.MIN_VALUE,
+						KeysetSlice.ascending(pageSize)), pageSize, after != null);
+	}
+	
+	//This method searches the employees by role, by last name or by the beginning of the last name (e.g. for autocomplete),
+	//e.g. /employees/search?role=Teacher&prefix=Alm; role can be combined with lastName or prefix, and lastName wins over prefix;
+	//each filter is a derived query that uses one of the indexes of Employee, so only the matching rows are read;
+	//the results are paginated like all(), by keyset on id (after and size), with a next link while there are more;
+	@GetMapping("/employees/search")
+	public CollectionModel<EntityModel<Employee>> search(@RequestParam(required = false) String role,
+			@RequestParam(required = false) String lastName, @RequestParam(required = false) String prefix,
+			@RequestParam(required = false) Long after, @RequestParam(required = false) Integer size, WebRequest request) {
+		
+		//the results change with the collection, so they have its ETag;
+		if(request.checkNotModified(versions.tag(CollectionVersions.EMPLOYEES))) {
+			return null;
+		}
+		
+		int pageSize = KeysetSlice.size(size);
+		Long from = after != null ? after : Long.MIN_VALUE;
+		Pageable pageable = KeysetSlice.ascending(pageSize);
+		
+		List<Employee> rows;
+		if(lastName != null) {
+			rows = role != null
+					? repository.findByRoleAndLastNameAndIdGreaterThan(role, lastName, from, pageable)
+					: repository.findByLastNameAndIdGreaterThan(lastName, from, pageable);
+		} else if(prefix != null) {
+			rows = role != null
+					? repository.findByRoleAndLastNameStartingWithAndIdGreaterThan(role, prefix, from, pageable)
+					: repository.findByLastNameStartingWithAndIdGreaterThan(prefix, from, pageable);
+		} else if(role != null) {
+			rows = repository.findByRoleAndIdGreaterThan(role, from, pageable);
+		} else {
+			//without filter, the search is the collection itself;
+			rows = repository.findByIdGreaterThan(from, pageable);
+		}
+		
+		return assembler.toSearchModel(KeysetSlice.forward(rows, pageSize, after != null), role, lastName, prefix, after, pageSize);
+	}
+	
+	//This method is the streaming mode of the collection, chosen by the header "Accept: application/x-ndjson";
+	//the employees are written one per line while they are read from a JDBC cursor, so the memory stays flat for any table size;
+	@GetMapping(value = "/employees", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> allAsStream() {
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.body(streamer.stream(repository::streamAll));
 	}
 	
 	//PostMapping maps POST requests onto specific handler methods;
@@ -90,6 +188,7 @@ public class EmployeeController {
 		//2. newEmployee is converted in RepresentationModel that it is a container for a collection of links a add such links to model;
 		//3. entityModel represents such container;
 		EntityModel<Employee> entityModel = assembler.toModel(repository.save(newEmployee));
+		versions.changed(CollectionVersions.EMPLOYEES);
 		//4. the container is used to set the body of response entity or Http response by body() and return it;
 		//5. once that Http response is returned, created() creates a builder with the CREATED status and a header the a given Uri. To do it:
 		//a. getRequiredLink() returns a link with a identifier for the links'context;
@@ -100,16 +199,79 @@ public class EmployeeController {
 				.body(entityModel);
 	}
 	
+	//This method creates or updates many employees in one request. The body is a JSON array or NDJSON (one employee per line);
+	//employees are parsed while the body is read and saved by BatchWriter in chunks, with JDBC batching inside each chunk;
+	//an employee with an id that exists is updated, the others are created. The response has one result per employee;
+	@PostMapping(value = "/employees/batch", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+	public List<BatchItemResult> newEmployees(InputStream body) throws IOException {
+		//readValues() iterates the employees of the body; a JSON array is unwrapped into its elements;
+		try (MappingIterator<Employee> employees = objectMapper.readerFor(Employee.class).readValues(body)) {
+			return batchWriter.write(employees, repository, this::prepareUpsert, Employee::getId, Employee::setId);
+		} finally {
+			versions.changed(CollectionVersions.EMPLOYEES);
+		}
+	}
+	
+	//This method writes all the employees, for the payroll runs: NDJSON, or CSV with a header line ("Accept: text/csv");
+	//the rows are read from a forward-only cursor as unmanaged employees and written while they are read, through one
+	//buffer, so the memory of an export does not depend on the size of the table;
+	@GetMapping(value = "/employees/export", produces = { MediaType.APPLICATION_NDJSON_VALUE, CsvFormat.TEXT_CSV_VALUE })
+	public ResponseEntity<StreamingResponseBody> export(@RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept) {
+		if(CsvFormat.accepts(accept)) {
+			return ResponseEntity.ok()
+					.contentType(CsvFormat.TEXT_CSV)
+					.header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("employees.csv").build().toString())
+					.body(streamer.stream(repository::streamRows, csv.writer(Employee.class, CSV_COLUMNS)));
+		}
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("employees.ndjson").build().toString())
+				.body(streamer.stream(repository::streamRows));
+	}
+	
+	//This method loads an export (NDJSON or CSV): like the bulk endpoint, the employees are parsed while the body is read
+	//and saved in chunks with JDBC batching, but the response only counts them (see ImportSummary);
+	@PostMapping(value = "/employees/import", consumes = { MediaType.APPLICATION_NDJSON_VALUE, CsvFormat.TEXT_CSV_VALUE })
+	public ImportSummary importEmployees(InputStream body, @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType)
+			throws IOException {
+		ImportSummary summary = new ImportSummary();
+		try (MappingIterator<Employee> employees = CsvFormat.TEXT_CSV.isCompatibleWith(MediaType.parseMediaType(contentType))
+				? csv.readValues(Employee.class, body)
+				: objectMapper.readerFor(Employee.class).<Employee>readValues(body)) {
+			batchWriter.write(employees, repository, this::prepareUpsert, Employee::getId, Employee::setId, summary);
+			return summary;
+		} finally {
+			versions.changed(CollectionVersions.EMPLOYEES);
+		}
+	}
+	
+	//an employee with an id is updated from its current version (read without loading it), or created if it does not exist;
+	private void prepareUpsert(Employee employee) {
+		if(employee.getId() != null) {
+			repository.findVersionById(employee.getId()).ifPresentOrElse(employee::setVersion, () -> employee.setId(null));
+		}
+	}
+	
 	//@GetMapping here means a request to one item from List<Employee> or a list of employees;
 	//This method binds its parameter to a URI template variable and retrieve a object with a correspondent id;
 	//if the object is not found, then a exception is thrown;
 	//If the object is found, so a EntityModel wrapper is created to wraps the domain object and its links and return it;
+	//The ETag of an employee is its version. When the client sends If-None-Match, only the version is read from database,
+	//and if it did not change, 304 (Not Modified) is returned without loading and serializing the employee;
 	@GetMapping("/employees/{id}")
-	public EntityModel<Employee> one(@PathVariable Long id) {
+	public EntityModel<Employee> one(@PathVariable Long id, WebRequest request) {
+		
+		if(request.getHeader(HttpHeaders.IF_NONE_MATCH) != null && repository.findVersionById(id)
+				.map(version -> request.checkNotModified(EntityTags.of(version)))
+				.orElse(false)) {
+			return null;
+		}
 		
 		Employee employee = repository.findById(id)//
 				.orElseThrow(()-> new EmployeeNotFoundException(id));
 		
+		//adds the ETag header to the response;
+		request.checkNotModified(EntityTags.of(employee.getVersion()));
 		return assembler.toModel(employee);
 		
 		/*return EntityModel.of(employee, //
@@ -121,18 +283,38 @@ public class EmployeeController {
 	//This method, first, return a employee by id and then updates the employee with new data and save it;
 	//if there is no such id, so the method will return a Optional object, describing the absence of value;
 	//Second, if there is no employee with such id, the method will create a new employee and save it;
+	//With If-Match, the employee is only replaced if its ETag (version) is still the one the client has seen,
+	//otherwise 412 (Precondition Failed) is returned, also when the employee does not exist; a concurrent update between the check and the save is detected by
+	//the version too (409, see OptimisticLockingAdvice). The response carries the ETag of the new version;
 	@PutMapping("/employees/{id}")
-	public Employee replaceEmployee(@RequestBody Employee newEmployee, @PathVariable Long id) {
-		return repository.findById(id)
-				.map(employee -> {
-					employee.setName(newEmployee.getName());
-					employee.setRole(newEmployee.getRole());
-					return repository.save(employee);
-				})
-				.orElseGet(() -> {
-					newEmployee.setId(id);
-					return repository.save(newEmployee);
-				});		
+	public ResponseEntity<Employee> replaceEmployee(@RequestBody Employee newEmployee, @PathVariable Long id, WebRequest request) {
+		Optional<Employee> current = repository.findById(id);
+		
+		Employee saved;
+		if(current.isPresent()) {
+			Employee employee = current.get();
+			if(request.checkNotModified(EntityTags.of(employee.getVersion()))) {
+				return null;
+			}
+			//the employee read (maybe from the cache) is not changed; a copy with its id and version is saved instead;
+			Employee replaced = new Employee();
+			replaced.setId(id);
+			replaced.setVersion(employee.getVersion());
+			replaced.setName(newEmployee.getName());
+			replaced.setRole(newEmployee.getRole());
+			saved = repository.save(replaced);
+		} else if(request.getHeader(HttpHeaders.IF_MATCH) != null) {
+			//If-Match on an employee that does not exist is false (RFC 9110, 13.1.1): the client meant to replace an
+			//employee it has seen, so none is created;
+			return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+		} else {
+			//with @Version, an employee with an id and without version would be persisted as new and fail;
+			//the id is generated, as merge() already did before;
+			newEmployee.setId(null);
+			saved = repository.save(newEmployee);
+		}
+		versions.changed(CollectionVersions.EMPLOYEES);
+		return ResponseEntity.ok().eTag(EntityTags.of(saved.getVersion())).body(saved);
 	}
 	
 	//@DeletingMapping maps a request for deleting by id with the method deleteEmployee;
@@ -142,6 +324,7 @@ public class EmployeeController {
 	public ResponseEntity<?> deleteEmployee(@PathVariable Long id) {
 		//delete the entity by id
 		repository.deleteById(id);
+		versions.changed(CollectionVersions.EMPLOYEES);
 		//build() builds and return a response entity without body;
 		// noContent() creates a builder with NO CONETENT status and returns it;
 		// in general this method returns a Http message with status 204 or NO CONTENT;
@@ -3,47 +3,111 @@ package com.rest.spring.controller;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
-import java.net.http.HttpHeaders;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.function.IntFunction;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.MediaTypes;
 import org.springframework.hateoas.mediatype.problem.Problem;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rest.spring.batch.BatchItemResult;
+import com.rest.spring.batch.BatchWriter;
+import com.rest.spring.batch.ImportSummary;
+import com.rest.spring.compact.CompactMediaTypes;
+import com.rest.spring.compact.CompactPage;
+import com.rest.spring.etag.CollectionVersions;
+import com.rest.spring.etag.EntityTags;
+import com.rest.spring.events.OrderEventBus;
 import com.rest.spring.exception.OrderNotFoundException;
+import com.rest.spring.exception.OrderTaskNotFoundException;
+import com.rest.spring.idempotency.IdempotencyStore;
+import com.rest.spring.model.KeysetSlice;
 import com.rest.spring.model.Order;
 import com.rest.spring.model.OrderModelAssembler;
+import com.rest.spring.model.OrderTask;
+import com.rest.spring.model.OrderTaskModelAssembler;
 import com.rest.spring.model.Status;
+import com.rest.spring.pipeline.OrderPipeline;
 import com.rest.spring.repository.OrderRepository;
+import com.rest.spring.repository.OrderTaskRepository;
+import com.rest.spring.shard.OrderShards;
+import com.rest.spring.stream.CsvFormat;
+import com.rest.spring.stream.NdjsonStreamer;
 
 
 //This annotation is a junction of 2 others: @controller and @ResponseBody;
 //@Controller means that Spring will see the class as a controller in MVC layer, and @ResponseBody means that
 //a method return value (data) must be bound to the web response body;
 @RestController
+//the servlet controllers are only used by a servlet application; the reactive application (profile "reactive") has its own;
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class OrderController {
 	
 	//Injection of Dependency
 	private final OrderRepository orderRepository;
 	private final OrderModelAssembler assembler;
+	private final NdjsonStreamer streamer;
+	private final BatchWriter batchWriter;
+	private final ObjectMapper objectMapper;
+	private final CollectionVersions versions;
+	private final OrderPipeline pipeline;
+	private final OrderTaskRepository taskRepository;
+	private final OrderTaskModelAssembler taskAssembler;
+	private final OrderEventBus events;
+	private final IdempotencyStore idempotency;
+	private final CsvFormat csv;
+	private final OrderShards shards;
+	
+	//the columns of the CSV export;
+	private static final String[] CSV_COLUMNS = { "id", "description", "status" };
 	
 	
 	// Constructor for initializing the fields;
-	public OrderController(OrderRepository orderRepository, OrderModelAssembler assembler) {
+	public OrderController(OrderRepository orderRepository, OrderModelAssembler assembler, NdjsonStreamer streamer,
+			BatchWriter batchWriter, ObjectMapper objectMapper, CollectionVersions versions, OrderPipeline pipeline,
+			OrderTaskRepository taskRepository, OrderTaskModelAssembler taskAssembler, OrderEventBus events,
+			IdempotencyStore idempotency, CsvFormat csv, OrderShards shards) {
 		super();
 		this.orderRepository = orderRepository;
 		this.assembler = assembler;
+		this.streamer = streamer;
+		this.batchWriter = batchWriter;
+		this.objectMapper = objectMapper;
+		this.versions = versions;
+		this.pipeline = pipeline;
+		this.taskRepository = taskRepository;
+		this.taskAssembler = taskAssembler;
+		this.events = events;
+		this.idempotency = idempotency;
+		this.csv = csv;
+		this.shards = shards;
 	}
 	
 	//----------------------------------------------------------------------------------------------------------------------
@@ -51,23 +115,87 @@ public class OrderController {
 	//GetMapping associates HTTP GET requests in this "/orders" path to a specific method, in our case, all();
 	@GetMapping("/orders")
 	//CollectionModel helps to create a container for collecting entities of Order'type;
-	public CollectionModel<EntityModel<Order>> all(){
+	//The collection is paginated by keyset on id (after, before and size), like in EmployeeController.all();
+	//status filters the orders, e.g. /orders?status=IN_PROGRESS; the index on (status, id) serves both the filter and the cursor;
+	public CollectionModel<EntityModel<Order>> all(@RequestParam(required = false) Long after,
+			@RequestParam(required = false) Long before, @RequestParam(required = false) Integer size,
+			@RequestParam(required = false) Status status, WebRequest request){
 		
-		//stream() makes this new stream sequential in according of entry order;
-		//findAll() returns all the instances of the Order type. In database world, we could call such instances of rows in table maybe;
-		List<EntityModel<Order>> orders = orderRepository.findAll().stream()
-				
-				//map() returns a new stream of RepresentationModel;			
-				.map(assembler::toModel)
-				
-				//toList() returns a Collector. This Collector accumulates input elements into a new List;
-				//collect() performs an accumulation of input elements in a container that can be mutable. For that, it uses a Collector;
-				//collect returns a container with elements;
-				.collect(Collectors.toList());
+		//like in EmployeeController.all(), 304 (Not Modified) if no order was written since the ETag the client has;
+		if(request.checkNotModified(versions.tag(CollectionVersions.ORDERS))) {
+			return null;
+		}
+		
+		int pageSize = KeysetSlice.size(size);
+		
+		//all() returns a CollectionModel object with entities, correspondents links and the self, next and prev links of the page;
+		return assembler.toPagedModel(page(status, after, before, pageSize), after, before, pageSize, status);
+	}
+	
+	//Compact mode of the collection, chosen by the header "Accept: application/vnd.payroll.compact+json" (or +cbor);
+	//see EmployeeController.allCompact();
+	@GetMapping(value = "/orders", produces = { CompactMediaTypes.COMPACT_JSON_VALUE, CompactMediaTypes.COMPACT_CBOR_VALUE })
+	public CompactPage<Order> allCompact(@RequestParam(required = false) Long after,
+			@RequestParam(required = false) Long before, @RequestParam(required = false) Integer size,
+			@RequestParam(required = false) Status status, WebRequest request){
+		
+		if(request.checkNotModified(versions.tag(CollectionVersions.ORDERS, "compact"))) {
+			return null;
+		}
 		
-		//all() returns a CollectionModel object with entities and correspondents links;
-		return CollectionModel.of(orders,
-				linkTo(methodOn(OrderController.class).all()).withSelfRel());
+		int pageSize = KeysetSlice.size(size);
+		return assembler.toCompactPage(page(status, after, before, pageSize), after, before, pageSize, status);
+	}
+	
+	//the queries return only the rows of the page (plus one), never the whole table;
+	private KeysetSlice<Order> page(Status status, Long after, Long before, int pageSize) {
+		return before != null
+				? KeysetSlice.backward(findBefore(status, before, pageSize), pageSize)
+				: KeysetSlice.forward(findAfter(status, after != null ? after : Long.MIN_VALUE, pageSize), pageSize, after != null);
+	}
+	
+	//findAfter() and findBefore() choose the query of a page, with or without the status filter;
+	//with several shards, the page is read from every shard and the rows are merged by id (see OrderShards.merge());
+	private List<Order> findAfter(Status status, Long after, int pageSize) {
+		return shards.merge(shard -> status == null
+				? orderRepository.findByIdGreaterThan(after, KeysetSlice.ascending(pageSize))
+				: orderRepository.findByStatusAndIdGreaterThan(status, after, KeysetSlice.ascending(pageSize)),
+				Comparator.comparing(Order::getId), pageSize + 1);
+	}
+	
+	private List<Order> findBefore(Status status, Long before, int pageSize) {
+		return shards.merge(shard -> status == null
+				? orderRepository.findByIdLessThan(before, KeysetSlice.descending(pageSize))
+				: orderRepository.findByStatusAndIdLessThan(status, before, KeysetSlice.descending(pageSize)),
+				Comparator.comparing(Order::getId).reversed(), pageSize + 1);
+	}
+	
+	//GetMapping associates HTTP GET requests in "/orders/stats" onto stats();
+	//stats() returns how many orders there are in each status, e.g. {"IN_PROGRESS":1,"COMPLETED":1,"CANCELLED":0};
+	//the counting is done by the database in one GROUP BY query; a status without orders is returned with 0;
+	@GetMapping("/orders/stats")
+	//the counts change with the orders, so they have the ETag of the collection;
+	public Map<Status, Long> stats(WebRequest request){
+		if(request.checkNotModified(versions.tag(CollectionVersions.ORDERS))) {
+			return null;
+		}
+		Map<Status, Long> counts = new EnumMap<>(Status.class);
+		for(Status status : Status.values()) {
+			counts.put(status, 0L);
+		}
+		//with several shards, each one counts its orders and the counts are added;
+		shards.fanOut(shard -> orderRepository.countGroupByStatus())
+				.forEach(shardCounts -> shardCounts.forEach(count -> counts.merge(count.getStatus(), count.getTotal(), Long::sum)));
+		return counts;
+	}
+	
+	//Streaming mode of the collection, chosen by the header "Accept: application/x-ndjson";
+	//orders are written one per line while they come off a JDBC cursor; with several shards, in the order of eachShard();
+	@GetMapping(value = "/orders", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> allAsStream(){
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.body(eachShard(shard -> streamer.stream(orderRepository::streamAll)));
 	}
 	
 	//----------------------------------------------------------------------------------------------------------------------------
@@ -76,7 +204,14 @@ public class OrderController {
 	@GetMapping	("/orders/{id}")
 	
 	//one() has a paramater that corresponds to the URI template variable;
-	public EntityModel<Order> one(@PathVariable Long id){
+	//like in EmployeeController.one(), the ETag is the version of the order and If-None-Match is checked reading only the version;
+	public EntityModel<Order> one(@PathVariable Long id, WebRequest request){
+		
+		if(request.getHeader(HttpHeaders.IF_NONE_MATCH) != null && orderRepository.findVersionById(id)
+				.map(version -> request.checkNotModified(EntityTags.of(version)))
+				.orElse(false)) {
+			return null;
+		}
 		
 		//findById() returns a entity with a given id or null if not;
 		Order order = orderRepository.findById(id)
@@ -84,6 +219,9 @@ public class OrderController {
 				//orElseThrow() returns a value if it exists. If not, it returns a exception;
 				.orElseThrow(() -> new OrderNotFoundException(id));
 		
+		//adds the ETag header to the response;
+		request.checkNotModified(EntityTags.of(order.getVersion()));
+		
 		//toModel takes such entity and converts it in a RepresentationModel and return it;
 		return assembler.toModel(order);
 	}
@@ -94,13 +232,36 @@ public class OrderController {
 	@PutMapping("/orders")
 	
 	//newOrder() has a parameter that corresponds to the body of the web request;
-	ResponseEntity<EntityModel<Order>> newOrder(@RequestBody Order order){
+	//with the header "Prefer: respond-async", only the creation is queued (see OrderPipeline): the response is 202
+	//(Accepted) with the task to follow, a worker inserts the order IN_PROGRESS and the task links to it once DONE;
+	//with the header Idempotency-Key, a retry gets the response of the first request instead of a new order (see IdempotencyStore);
+	ResponseEntity<?> newOrder(@RequestBody Order order, WebRequest request,
+			@RequestHeader(name = IdempotencyStore.HEADER, required = false) String idempotencyKey){
+		
+		//the order of a key goes to the shard of its key, where the response of the key is stored;
+		if(idempotencyKey != null) {
+			return idempotency.execute(idempotencyKey, order, request, () -> createOrder(order, request));
+		}
+		//the other new orders go to the next shard, round the shards; from then on its id tells its shard (see OrderShards);
+		try (OrderShards.Binding shard = shards.bind(shards.next())) {
+			return createOrder(order, request);
+		}
+	}
+	
+	//createOrder() creates the order of newOrder(), in the shard bound by newOrder();
+	private ResponseEntity<?> createOrder(Order order, WebRequest request){
+		
+		if(respondAsync(request)) {
+			return accepted(pipeline.submitNew(order));
+		}
 		
 		// setStatus() defines status of the Order as IN_PROGRESS;
 		order.setStatus(Status.IN_PROGRESS);
 		
 		// orderRepository() saves an Order and returns it to newOrder; 
 		Order newOrder = orderRepository.save(order);
+		versions.changed(CollectionVersions.ORDERS);
+		events.publish(newOrder.getId(), Status.IN_PROGRESS);
 		
 		//newOrder() returns a response with CREATED status;
 		return ResponseEntity
@@ -110,7 +271,7 @@ public class OrderController {
 				//with linkTo() returns a link that points to the controller method, one();
 				//toUri() creates a URI of the created link;
 				//created() returns a builder with status CREATED. I would say it returns a CREATED	 message;
-				.created(linkTo(methodOn(OrderController.class).one(newOrder.getId())).toUri())
+				.created(linkTo(methodOn(OrderController.class).one(newOrder.getId(), null)).toUri())
 				
 				//toModel() converts the entity newOrder in RepresentationModel;
 				//and body() set it as body of response entity;
@@ -119,26 +280,93 @@ public class OrderController {
 	
 	//---------------------------------------------------------------------------------------------------------------------------------
 	
+	//PostMapping() associates requests for "/orders/batch" onto newOrders();
+	//newOrders() creates many orders in one request, from a JSON array or NDJSON (one order per line);
+	//like in newOrder(), every order starts IN_PROGRESS; BatchWriter saves them in chunks with JDBC batching;
+	@PostMapping(value = "/orders/batch", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+	public List<BatchItemResult> newOrders(InputStream body) throws IOException {
+		//the orders of one batch go to one shard, the next one;
+		try (MappingIterator<Order> orders = objectMapper.readerFor(Order.class).readValues(body);
+				OrderShards.Binding shard = shards.bind(shards.next())) {
+			List<BatchItemResult> results = batchWriter.write(orders, orderRepository, order -> order.setStatus(Status.IN_PROGRESS),
+					Order::getId, Order::setId);
+			results.stream()
+					.filter(result -> result.getOutcome() == BatchItemResult.Outcome.CREATED)
+					.forEach(result -> events.publish(result.getId(), Status.IN_PROGRESS));
+			return results;
+		} finally {
+			versions.changed(CollectionVersions.ORDERS);
+		}
+	}
+	
+	//GetMapping() associates requests for "/orders/export" onto export();
+	//export() writes all the orders as NDJSON, or CSV with a header line ("Accept: text/csv"), from a forward-only cursor;
+	//see EmployeeController.export(); with several shards, the rows are in the order of eachShard(), not sorted by id:
+	//the export is meant to be imported again, and POST /orders/import does not depend on the order of the rows;
+	@GetMapping(value = "/orders/export", produces = { MediaType.APPLICATION_NDJSON_VALUE, CsvFormat.TEXT_CSV_VALUE })
+	public ResponseEntity<StreamingResponseBody> export(@RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept){
+		if(CsvFormat.accepts(accept)) {
+			return ResponseEntity.ok()
+					.contentType(CsvFormat.TEXT_CSV)
+					.header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("orders.csv").build().toString())
+					.body(eachShard(shard -> streamer.stream(orderRepository::streamRows, csv.writer(Order.class, shard == 0, CSV_COLUMNS))));
+		}
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("orders.ndjson").build().toString())
+				.body(eachShard(shard -> streamer.stream(orderRepository::streamRows)));
+	}
+	
+	//PostMapping() associates requests for "/orders/import" onto importOrders();
+	//importOrders() loads an export (NDJSON or CSV) in chunks, like newOrders(), and answers with the counts (ImportSummary);
+	//the orders are created with their status (IN_PROGRESS when it is missing) and new ids: the version of an order is
+	//never set from outside, so an import does not overwrite the orders that exist; no event is published, it is a load
+	//of data and not a change of status;
+	@PostMapping(value = "/orders/import", consumes = { MediaType.APPLICATION_NDJSON_VALUE, CsvFormat.TEXT_CSV_VALUE })
+	public ImportSummary importOrders(InputStream body, @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType)
+			throws IOException {
+		ImportSummary summary = new ImportSummary();
+		try (MappingIterator<Order> orders = CsvFormat.TEXT_CSV.isCompatibleWith(MediaType.parseMediaType(contentType))
+				? csv.readValues(Order.class, body)
+				: objectMapper.readerFor(Order.class).<Order>readValues(body);
+				OrderShards.Binding shard = shards.bind(shards.next())) {
+			batchWriter.write(orders, orderRepository, order -> {
+				order.setId(null);
+				if(order.getStatus() == null) {
+					order.setStatus(Status.IN_PROGRESS);
+				}
+			}, Order::getId, Order::setId, summary);
+			return summary;
+		} finally {
+			versions.changed(CollectionVersions.ORDERS);
+		}
+	}
+	
+	
 	
 	//DeleteMapping() associates HTTP DELETE requests onto cancel();
 	@DeleteMapping("/orders/{id}/cancel")
 	//cancel() has a paramater that corresponds to the URI template variable, allowing to get a certain resource;
-	public ResponseEntity<?> cancel(@PathVariable Long id){
-		// findById() returns a object Order that it is a entity. If such entity exists, so assign it to order, if not, a exception;
-		Order order = orderRepository.findById(id)
-				//()-> gets a result and return it or in our case, a exception;
-				// this exception is just returned if the value does not exist;
-				//if value exists, then orElseThrow() returns it;
-				.orElseThrow(()-> new OrderNotFoundException(id));
+	public ResponseEntity<?> cancel(@PathVariable Long id, WebRequest request){
 		
-		//save() return a entity and toModel() converts it in RepresentationModel;
-		//ok() creates a EntityResponse with OK status and return it; 
-		if(order.getStatus() == Status.IN_PROGRESS) {
-			order.setStatus(Status.CANCELLED);
-			return ResponseEntity.ok(assembler.toModel(orderRepository.save(order)));
+		//with "Prefer: respond-async", the cancellation is queued instead (see newOrder());
+		if(respondAsync(request)) {
+			return submit(id, Status.CANCELLED, "cancel");
 		}
 		
+		//transition() changes the status in one conditional UPDATE (... WHERE id = ? AND status = IN_PROGRESS);
+		//the database decides, so a concurrent complete() can not be overwritten: only one of them updates the row;
+		//with If-Match, the version of the ETag is added to the condition (... AND version = ?);
+		//one updated row means the order was IN_PROGRESS and now is CANCELLED, then it is read again and returned with OK status;
+		if(transition(id, Status.CANCELLED, request) == 1) {
+			return updated(id);
+		}
 		
+		//no updated row: the order does not exist (exception), it is not IN_PROGRESS anymore or its version changed;
+		Order order = findOrder(id);
+		if(order.getStatus() == Status.IN_PROGRESS) {
+			return preconditionFailed(order);
+		}
 		
 		//cancel() returns a HTTP response that includes a status code and carry details of a Problem;
 		return ResponseEntity
@@ -162,16 +390,22 @@ public class OrderController {
 	@PutMapping("/orders/{id}/complete")
 	//complete() has a parameter that indicates it is bound to the URI template variable or {id}; 
 	// So what happens with parameter is reflected in template variable;
-	public ResponseEntity<?> complete(@PathVariable Long id){
+	public ResponseEntity<?> complete(@PathVariable Long id, WebRequest request){
 		
 		//idem as in cancel() method;
-		Order order = orderRepository.findById(id)
-				.orElseThrow(()-> new OrderNotFoundException(id));
+		if(respondAsync(request)) {
+			return submit(id, Status.COMPLETED, "complete");
+		}
 		
 		//idem as in cancel() method;
+		if(transition(id, Status.COMPLETED, request) == 1) {
+			return updated(id);
+		}
+		
+		//idem as in cancel() method;
+		Order order = findOrder(id);
 		if(order.getStatus() == Status.IN_PROGRESS) {
-			order.setStatus(Status.COMPLETED);
-			return ResponseEntity.ok(assembler.toModel(orderRepository.save(order)));
+			return preconditionFailed(order);
 		}
 		
 		//idem as in cancel() method;
@@ -184,4 +418,104 @@ public class OrderController {
 		
 	}
 	
+	//GetMapping() associates HTTP GET requests in "/orders/events" onto events();
+	//events() is a stream of Server-Sent Events, one event "status" each time an order is created, completed or cancelled,
+	//e.g. "id:7 event:status data:{"id":42,"status":"COMPLETED"}"; id and status keep only the events of one order or status;
+	//the client is told when an order changes, instead of polling GET /orders/{id} (see OrderEventBus);
+	@GetMapping(value = "/orders/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter events(@RequestParam(required = false) Long id, @RequestParam(required = false) Status status){
+		return events.subscribe(id, status);
+	}
+	
+	//GetMapping() associates HTTP GET requests in "/orders/tasks/{id}" onto task();
+	//task() returns a task queued with "Prefer: respond-async": PENDING until a worker takes it, then DONE or REJECTED;
+	@GetMapping("/orders/tasks/{id}")
+	public EntityModel<OrderTask> task(@PathVariable Long id){
+		return taskAssembler.toModel(taskRepository.findById(id)
+				.orElseThrow(() -> new OrderTaskNotFoundException(id)));
+	}
+	
+	//eachShard() writes the bodies of the shards one after the other, in one response: the rows of the shard 0 by id, then
+	//the ones of the shard 1 by id, and so on; the order of the id holds within a shard, not across the shards (the pages of
+	//GET /orders are merged by id, the streams are not: a merge would hold one cursor, and one connection, per shard for the
+	//whole response); with one shard it is the body itself, in the order of the id;
+	private StreamingResponseBody eachShard(IntFunction<StreamingResponseBody> body) {
+		if(OrderShards.count() == 1) {
+			return body.apply(0);
+		}
+		return out -> {
+			for(int shard = 0; shard < OrderShards.count(); shard++) {
+				try (OrderShards.Binding binding = shards.bind(shard)) {
+					body.apply(shard).writeTo(out);
+				}
+			}
+		};
+	}
+	
+	//respondAsync() tells if the client asked for the asynchronous processing (RFC 7240, "Prefer: respond-async");
+	private static boolean respondAsync(WebRequest request) {
+		String prefer = request.getHeader("Prefer");
+		return prefer != null && prefer.contains("respond-async");
+	}
+	
+	//submit() queues a transition of an order that is IN_PROGRESS now; the other ones get the same 405 as the synchronous
+	//transitions, the worker checks the status again when it applies the task;
+	private ResponseEntity<?> submit(Long id, Status status, String action) {
+		Order order = findOrder(id);
+		if(order.getStatus() != Status.IN_PROGRESS) {
+			return ResponseEntity
+					.status(HttpStatus.METHOD_NOT_ALLOWED)
+					.header(HttpHeaders.CONTENT_TYPE, MediaTypes.HTTP_PROBLEM_DETAILS_JSON_VALUE)
+					.body(Problem.create()
+							.withTitle("Method not allowed")
+							.withDetail("You can't " + action + " an order that is in the " + order.getStatus() + " status"));
+		}
+		return accepted(pipeline.submit(id, status));
+	}
+	
+	//accepted() returns 202 with the task and its URI in the Location header, where the client can poll it;
+	private ResponseEntity<EntityModel<OrderTask>> accepted(OrderTask task) {
+		EntityModel<OrderTask> model = taskAssembler.toModel(task);
+		return ResponseEntity.accepted()
+				.location(model.getRequiredLink(IanaLinkRelations.SELF).toUri())
+				.header("Preference-Applied", "respond-async")
+				.body(model);
+	}
+	
+	//transition() moves an IN_PROGRESS order to the given status, and only from the version of If-Match if it is sent;
+	//a malformed If-Match has version -1, which no order has;
+	private int transition(Long id, Status status, WebRequest request) {
+		Long version = EntityTags.version(request.getHeader(HttpHeaders.IF_MATCH));
+		return version == null
+				? orderRepository.transition(id, Status.IN_PROGRESS, status)
+				: orderRepository.transition(id, Status.IN_PROGRESS, status, version);
+	}
+	
+	//updated() returns the order after a transition, with the ETag of its new version;
+	private ResponseEntity<EntityModel<Order>> updated(Long id) {
+		versions.changed(CollectionVersions.ORDERS);
+		Order order = findOrder(id);
+		events.publish(order.getId(), order.getStatus());
+		return ResponseEntity.ok()
+				.eTag(EntityTags.of(order.getVersion()))
+				.body(assembler.toModel(order));
+	}
+	
+	//preconditionFailed() returns 412: the order is still IN_PROGRESS, but not in the version of If-Match;
+	private ResponseEntity<Problem> preconditionFailed(Order order) {
+		return ResponseEntity
+				.status(HttpStatus.PRECONDITION_FAILED)
+				.eTag(EntityTags.of(order.getVersion()))
+				.header(HttpHeaders.CONTENT_TYPE, MediaTypes.HTTP_PROBLEM_DETAILS_JSON_VALUE)
+				.body(Problem.create()
+						.withTitle("Precondition failed")
+						.withDetail("The order " + order.getId() + " was changed; its current ETag is " + EntityTags.of(order.getVersion())));
+	}
+	
+	//findOrder() returns the order with the given id or throws a exception, like one();
+	private Order findOrder(Long id) {
+		return orderRepository.findById(id)
+				.orElseThrow(()-> new OrderNotFoundException(id));
+	}
+	
 }
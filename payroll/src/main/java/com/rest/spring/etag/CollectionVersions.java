@@ -0,0 +1,40 @@
+package com.rest.spring.etag;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+//CollectionVersions keeps one counter per collection ("employees", "orders"), incremented by every write to the collection;
+//the ETag of a collection is its counter, so a poll of an unchanged collection gets 304 without reading the database;
+//the counters live in this process: the ETags start with the time the process started, so they never repeat after a restart;
+@Component
+public class CollectionVersions {
+	
+	public static final String EMPLOYEES = "employees";
+	public static final String ORDERS = "orders";
+	
+	private final long epoch = System.currentTimeMillis();
+	private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+	
+	//changed() is called after a write to the collection has been committed;
+	public void changed(String collection) {
+		counter(collection).incrementAndGet();
+	}
+	
+	//tag() returns the current ETag of the collection, e.g. "1697500000000.42";
+	public String tag(String collection) {
+		return "\"" + epoch + "." + counter(collection).get() + "\"";
+	}
+	
+	//this tag() is the ETag of another representation of the collection (e.g. "compact"), e.g. "1697500000000.42-compact";
+	//each representation has its own ETag, so a cache never answers one with the other;
+	public String tag(String collection, String representation) {
+		return "\"" + epoch + "." + counter(collection).get() + "-" + representation + "\"";
+	}
+	
+	private AtomicLong counter(String collection) {
+		return counters.computeIfAbsent(collection, name -> new AtomicLong());
+	}
+}
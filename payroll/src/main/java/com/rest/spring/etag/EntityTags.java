@@ -0,0 +1,33 @@
+package com.rest.spring.etag;
+
+//EntityTags builds and reads the strong ETags of the entities: the ETag of an employee or an order is its version,
+//which Hibernate increments on every update, so comparing ETags never needs the representation itself;
+public final class EntityTags {
+	
+	private EntityTags() {}
+	
+	//of() returns the ETag of a version, e.g. "3" (with the quotes);
+	public static String of(Long version) {
+		return "\"" + (version != null ? version : 0L) + "\"";
+	}
+	
+	//version() reads the version of an If-Match header with one strong ETag; it returns null for no header, "*" or
+	//a list, and -1 for a value that is not a version, so that it matches no entity;
+	public static Long version(String ifMatch) {
+		if(ifMatch == null) {
+			return null;
+		}
+		String tag = ifMatch.trim();
+		if(tag.equals("*") || tag.indexOf(',') >= 0) {
+			return null;
+		}
+		if(tag.length() < 2 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+			return -1L;
+		}
+		try {
+			return Long.valueOf(tag.substring(1, tag.length() - 1));
+		} catch (NumberFormatException e) {
+			return -1L;
+		}
+	}
+}
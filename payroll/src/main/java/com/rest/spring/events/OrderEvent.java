@@ -0,0 +1,29 @@
+package com.rest.spring.events;
+
+import com.rest.spring.model.Status;
+
+//OrderEvent says that an order has a new status: created (IN_PROGRESS), COMPLETED or CANCELLED;
+//it is the data of one event of GET /orders/events, e.g. {"id":42,"status":"COMPLETED"};
+public class OrderEvent {
+	
+	private final Long id;
+	private final Status status;
+	
+	public OrderEvent(Long id, Status status) {
+		this.id = id;
+		this.status = status;
+	}
+	
+	public Long getId() {
+		return id;
+	}
+	
+	public Status getStatus() {
+		return status;
+	}
+	
+	@Override
+	public String toString() {
+		return "OrderEvent{" + "id=" + this.id + ", status=" + this.status + '}';
+	}
+}
@@ -0,0 +1,173 @@
+package com.rest.spring.events;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import com.rest.spring.model.Status;
+
+//OrderEventBus delivers the OrderEvents published by OrderController and OrderWorkers to the subscribers of
+//GET /orders/events (Server-Sent Events), in this process only;
+//publish() never waits for a client: each subscriber has a bounded buffer, and its events are written by a virtual thread
+//that drains the buffer; a subscriber too slow to keep up fills its buffer and is disconnected (it reconnects and reads
+//the orders it is interested in again), so a slow client costs at most one full buffer and never slows the others;
+@Component
+public class OrderEventBus {
+	
+	//a Delivery without event is a heartbeat;
+	private static final Delivery HEARTBEAT = new Delivery(0, null);
+	
+	private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+	
+	//the id of each event (the "id:" field of SSE), in the order of publication;
+	private final AtomicLong sequence = new AtomicLong();
+	
+	private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+	private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "order-events-heartbeat");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	private final int bufferSize;
+	private final Counter dropped;
+	
+	public OrderEventBus(MeterRegistry registry, @Value("${payroll.orders.events.buffer-size:256}") int bufferSize,
+			@Value("${payroll.orders.events.heartbeat:15s}") Duration heartbeat) {
+		this.bufferSize = bufferSize;
+		this.dropped = Counter.builder("payroll.orders.events.dropped")
+				.description("Subscribers disconnected because their buffer was full")
+				.register(registry);
+		Gauge.builder("payroll.orders.events.subscribers", subscribers, Set::size).register(registry);
+		
+		//a comment line now and then keeps the connection open through proxies and finds the clients that are gone;
+		heartbeats.scheduleWithFixedDelay(() -> subscribers.forEach(subscriber -> subscriber.offer(HEARTBEAT)),
+				heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+	}
+	
+	//subscribe() returns the emitter of a new subscriber, with the events of one order (id) and/or one status, or all of them;
+	public SseEmitter subscribe(Long id, Status status) {
+		//no timeout of its own: the async request timeout (spring.mvc.async.request-timeout) applies;
+		SseEmitter emitter = new SseEmitter();
+		Subscriber subscriber = new Subscriber(emitter, id, status, bufferSize);
+		emitter.onCompletion(() -> subscribers.remove(subscriber));
+		emitter.onTimeout(() -> subscribers.remove(subscriber));
+		emitter.onError(error -> subscribers.remove(subscriber));
+		subscribers.add(subscriber);
+		return emitter;
+	}
+	
+	//publish() hands the event to the subscribers that want it and returns at once;
+	public void publish(OrderEvent event) {
+		if(subscribers.isEmpty()) {
+			return;
+		}
+		Delivery delivery = new Delivery(sequence.incrementAndGet(), event);
+		for(Subscriber subscriber : subscribers) {
+			if(subscriber.accepts(event) && !subscriber.offer(delivery)) {
+				//the buffer is full: the subscriber is disconnected instead of holding more events for it;
+				subscribers.remove(subscriber);
+				dropped.increment();
+				subscriber.overflow();
+			}
+		}
+	}
+	
+	public void publish(Long id, Status status) {
+		publish(new OrderEvent(id, status));
+	}
+	
+	@PreDestroy
+	public void close() {
+		heartbeats.shutdownNow();
+		subscribers.forEach(subscriber -> subscriber.emitter.complete());
+		senders.shutdown();
+	}
+	
+	//Delivery is one event with its id;
+	private record Delivery(long id, OrderEvent event) {}
+	
+	//Subscriber is one client of GET /orders/events: its filters, its buffer and its emitter;
+	private final class Subscriber {
+		
+		private final SseEmitter emitter;
+		private final Long id;
+		private final Status status;
+		private final BlockingQueue<Delivery> buffer;
+		
+		//true while a sender is draining the buffer; only one sender at a time, so the events keep their order;
+		private final AtomicBoolean sending = new AtomicBoolean();
+		
+		Subscriber(SseEmitter emitter, Long id, Status status, int bufferSize) {
+			this.emitter = emitter;
+			this.id = id;
+			this.status = status;
+			this.buffer = new ArrayBlockingQueue<>(bufferSize);
+		}
+		
+		boolean accepts(OrderEvent event) {
+			return (id == null || id.equals(event.getId())) && (status == null || status == event.getStatus());
+		}
+		
+		boolean offer(Delivery delivery) {
+			if(!buffer.offer(delivery)) {
+				return false;
+			}
+			if(sending.compareAndSet(false, true)) {
+				senders.execute(this::drain);
+			}
+			return true;
+		}
+		
+		void overflow() {
+			buffer.clear();
+			emitter.complete();
+		}
+		
+		//drain() writes the buffered events; an event offered while the flag is being released is drained again;
+		private void drain() {
+			do {
+				Delivery delivery;
+				while((delivery = buffer.poll()) != null) {
+					try {
+						if(delivery.event() == null) {
+							emitter.send(SseEmitter.event().comment("heartbeat"));
+						} else {
+							emitter.send(SseEmitter.event()
+									.id(Long.toString(delivery.id()))
+									.name("status")
+									.data(delivery.event(), MediaType.APPLICATION_JSON));
+						}
+					} catch (IOException | IllegalStateException e) {
+						//the client is gone (or the emitter is complete): it is removed by onError() or onCompletion();
+						subscribers.remove(this);
+						buffer.clear();
+						sending.set(false);
+						return;
+					}
+				}
+				sending.set(false);
+			} while(!buffer.isEmpty() && sending.compareAndSet(false, true));
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package com.rest.spring.exception;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+//This advice answers a write request refused by the admission control with an HTTP 429 (Too Many Requests) and the
+//Retry-After header, in seconds;
+@ControllerAdvice
+public class AdmissionRejectedAdvice {
+	
+	@ResponseBody
+	@ExceptionHandler(AdmissionRejectedException.class)
+	ResponseEntity<String> admissionRejectedHandler(AdmissionRejectedException ex) {
+		return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+				.header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfter()))
+				.body(ex.getMessage());
+	}
+}
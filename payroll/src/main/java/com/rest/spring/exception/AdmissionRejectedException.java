@@ -0,0 +1,18 @@
+package com.rest.spring.exception;
+
+//AdmissionRejectedException refuses a write request before its handler runs: the client went over its rate, or too many
+//writes are already running; retryAfter is the number of seconds after which the request may be sent again;
+public class AdmissionRejectedException extends RuntimeException {
+	
+	private final long retryAfter;
+	
+	public AdmissionRejectedException(String message, long retryAfter) {
+		super(message);
+		this.retryAfter = retryAfter;
+	}
+	
+	public long getRetryAfter() {
+		return retryAfter;
+	}
+
+}
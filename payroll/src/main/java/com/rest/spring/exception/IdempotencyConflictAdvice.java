@@ -0,0 +1,19 @@
+package com.rest.spring.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//like OptimisticLockingAdvice, a 409 with the message of the exception; the client retries later with the same key;
+@ControllerAdvice
+public class IdempotencyConflictAdvice {
+	
+	@ResponseBody
+	@ExceptionHandler(IdempotencyConflictException.class)
+	@ResponseStatus(HttpStatus.CONFLICT)
+	String idempotencyConflictHandler(IdempotencyConflictException ex) {
+		return ex.getMessage();
+	}
+}
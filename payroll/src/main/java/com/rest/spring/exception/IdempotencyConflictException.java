@@ -0,0 +1,11 @@
+package com.rest.spring.exception;
+
+//IdempotencyConflictException answers a retry whose first request, with the same Idempotency-Key, has not finished:
+//on another instance, or for longer than the retry can wait here;
+public class IdempotencyConflictException extends RuntimeException {
+	
+	public IdempotencyConflictException(String key) {
+		super("The request with the Idempotency-Key " + key + " is still in progress");
+	}
+
+}
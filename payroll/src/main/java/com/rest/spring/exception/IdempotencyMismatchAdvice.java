@@ -0,0 +1,19 @@
+package com.rest.spring.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//like IdempotencyConflictAdvice, with a 422: retrying will not help, the client must send a new key;
+@ControllerAdvice
+public class IdempotencyMismatchAdvice {
+	
+	@ResponseBody
+	@ExceptionHandler(IdempotencyMismatchException.class)
+	@ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+	String idempotencyMismatchHandler(IdempotencyMismatchException ex) {
+		return ex.getMessage();
+	}
+}
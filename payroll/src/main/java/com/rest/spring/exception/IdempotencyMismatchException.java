@@ -0,0 +1,11 @@
+package com.rest.spring.exception;
+
+//IdempotencyMismatchException answers a request that reuses an Idempotency-Key with another payload than the first
+//request with that key: it is not a retry, and it is not run;
+public class IdempotencyMismatchException extends RuntimeException {
+	
+	public IdempotencyMismatchException(String key) {
+		super("The Idempotency-Key " + key + " was already used with another request");
+	}
+
+}
@@ -0,0 +1,22 @@
+package com.rest.spring.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//This advice answers an update that lost the race against another update of the same entity;
+//Hibernate compares the version of the entity with the one in database and rejects the update when they differ;
+@ControllerAdvice
+public class OptimisticLockingAdvice {
+	
+	//says to issue an HttpStatus.CONFLICT, i.e. an HTTP 409; the client should read the entity again and retry;
+	@ResponseBody
+	@ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+	@ResponseStatus(HttpStatus.CONFLICT)
+	String optimisticLockingHandler(ObjectOptimisticLockingFailureException ex) {
+		return "The " + ex.getPersistentClassName() + " " + ex.getIdentifier() + " was changed by another request";
+	}
+}
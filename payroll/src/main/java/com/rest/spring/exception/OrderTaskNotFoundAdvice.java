@@ -0,0 +1,19 @@
+package com.rest.spring.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//like EmployeeNotFoundAdvice, a 404 with the message of the exception for an unknown order task;
+@ControllerAdvice
+public class OrderTaskNotFoundAdvice {
+	
+	@ResponseBody
+	@ExceptionHandler(OrderTaskNotFoundException.class)
+	@ResponseStatus(HttpStatus.NOT_FOUND)
+	String orderTaskNotFoundHandler(OrderTaskNotFoundException ex) {
+		return ex.getMessage();
+	}
+}
@@ -0,0 +1,9 @@
+package com.rest.spring.exception;
+
+public class OrderTaskNotFoundException extends RuntimeException {
+	
+	public OrderTaskNotFoundException(Long id) {
+		super("Could not find order task " + id);
+	}
+
+}
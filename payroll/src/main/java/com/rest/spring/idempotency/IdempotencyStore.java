@@ -0,0 +1,270 @@
+package com.rest.spring.idempotency;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rest.spring.exception.IdempotencyConflictException;
+import com.rest.spring.exception.IdempotencyMismatchException;
+import com.rest.spring.model.IdempotencyRecord;
+import com.rest.spring.repository.IdempotencyRecordRepository;
+import com.rest.spring.shard.OrderShards;
+
+//IdempotencyStore makes a request idempotent with the Idempotency-Key header: the first request with a key runs, and
+//its response (status, Location and body) is kept; a retry with the same key gets the same response again, without
+//running the request (and without reading the database); a retry that comes while the first request still runs waits
+//for its response instead of running it a second time;
+//the responses are kept in memory (Caffeine, bounded by payroll.idempotency.maximum-size and payroll.idempotency.ttl)
+//and, with payroll.idempotency.database=true, in the table IDEMPOTENCY_KEY too, shared by the instances (see
+//IdempotencyRecord); a request that fails keeps nothing, its retry runs again;
+//a key belongs to its client (the API key of payroll.admission.client-header, or the remote address), two clients may send
+//the same key; it belongs to one payload too: a request with a known key and another payload gets a 422, not the replay;
+//the request of a key runs in the shard of the key, and with the table its response is stored in the transaction of the
+//request: the order and the response of its key are committed together, a failure keeps neither;
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class IdempotencyStore {
+
+	public static final String HEADER = "Idempotency-Key";
+
+	//the header of a replayed response;
+	public static final String REPLAYED = "Idempotent-Replayed";
+
+	private static final int MAX_KEY_LENGTH = 255;
+
+	//the response of a key, as it was sent: the body is kept serialized, so a replay costs no assembly, and the same
+	//response can be read from the table;
+	private record StoredResponse(int status, String location, String body) {}
+
+	//the first request of a key: the hash of its payload, and the future of its response, which is what the retries wait on;
+	private record Pending(String requestHash, CompletableFuture<StoredResponse> response) {}
+
+	//the response of the action, as it is sent and as it is stored;
+	private record Exchange(ResponseEntity<?> entity, StoredResponse stored) {}
+
+	//a key is mapped to its Pending as soon as its first request starts;
+	private final Cache<String, Pending> responses;
+
+	private final IdempotencyRecordRepository records;
+	private final OrderShards shards;
+	private final TransactionTemplate transaction;
+	private final String clientHeader;
+	private final boolean database;
+	private final Duration wait;
+	private final ObjectMapper halMapper;
+	private final ScheduledExecutorService purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "idempotency-purger");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final ObjectMapper objectMapper;
+
+	public IdempotencyStore(IdempotencyRecordRepository records, ObjectMapper objectMapper, OrderShards shards,
+			PlatformTransactionManager transactionManager,
+			@Value("${payroll.admission.client-header:X-API-Key}") String clientHeader,
+			@Value("${payroll.idempotency.database:false}") boolean database,
+			@Value("${payroll.idempotency.maximum-size:100000}") long maximumSize,
+			@Value("${payroll.idempotency.ttl:24h}") Duration ttl,
+			@Value("${payroll.idempotency.wait:10s}") Duration wait) {
+		this.records = records;
+		this.shards = shards;
+		this.transaction = new TransactionTemplate(transactionManager);
+		this.clientHeader = clientHeader;
+		this.database = database;
+		this.objectMapper = objectMapper;
+		this.wait = wait;
+		this.responses = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(ttl).build();
+
+		//the bodies are the HAL documents the controllers return, written like the HAL message converter does;
+		this.halMapper = objectMapper.copy().registerModule(new Jackson2HalModule());
+		this.halMapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(new DefaultLinkRelationProvider(),
+				CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+
+		if(database) {
+			purger.scheduleWithFixedDelay(() -> shards.fanOut(shard -> records.purge(Instant.now().minus(ttl))),
+					1, 1, TimeUnit.MINUTES);
+		}
+	}
+
+	//execute() returns the response of the first request of this client with this key: the one of action, run now in the
+	//shard of the key, or a replay; payload is the body of the request, the retries must send the same;
+	public ResponseEntity<?> execute(String key, Object payload, WebRequest request, Supplier<ResponseEntity<?>> action) {
+		if(key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"The " + HEADER + " must have from 1 to " + MAX_KEY_LENGTH + " characters");
+		}
+		String id = sha256((client(request) + "\n" + key).getBytes(StandardCharsets.UTF_8));
+		String requestHash = sha256(json(payload));
+
+		try (OrderShards.Binding shard = shards.bind(shards.shardOf(Long.parseUnsignedLong(id.substring(0, 16), 16)))) {
+			while(true) {
+				Pending pending = new Pending(requestHash, new CompletableFuture<>());
+				Pending first = responses.asMap().putIfAbsent(id, pending);
+				if(first == null) {
+					return run(key, id, pending, action);
+				}
+				if(!first.requestHash().equals(requestHash)) {
+					throw new IdempotencyMismatchException(key);
+				}
+
+				StoredResponse stored = await(key, first.response());
+				if(stored != null) {
+					return replay(stored);
+				}
+				//the first request failed and its key was released: this one runs instead;
+			}
+		}
+	}
+
+	@PreDestroy
+	public void close() {
+		purger.shutdownNow();
+	}
+
+	private ResponseEntity<?> run(String key, String id, Pending pending, Supplier<ResponseEntity<?>> action) {
+		boolean claimed = false;
+		try {
+			if(database) {
+				StoredResponse recorded = claim(key, id, pending.requestHash());
+				if(recorded != null) {
+					pending.response().complete(recorded);
+					return replay(recorded);
+				}
+				claimed = true;
+			}
+
+			//with the table, the action and the response of its key are one transaction: if storing the response fails, the
+			//order is rolled back with it, and the retry that gets the released key does not create a second one;
+			Exchange exchange = database ? transaction.execute(tx -> perform(id, action)) : perform(id, action);
+			pending.response().complete(exchange.stored());
+			return exchange.entity();
+
+		} catch(RuntimeException e) {
+			responses.asMap().remove(id, pending);
+			if(claimed) {
+				records.deleteById(id);
+			}
+			pending.response().completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	//perform() runs the action and stores its response in the table, in the transaction of the caller;
+	private Exchange perform(String id, Supplier<ResponseEntity<?>> action) {
+		ResponseEntity<?> entity = action.get();
+		StoredResponse stored = new StoredResponse(entity.getStatusCode().value(),
+				entity.getHeaders().getFirst(HttpHeaders.LOCATION), write(entity.getBody()));
+		if(database) {
+			records.complete(id, stored.status(), stored.location(), stored.body());
+		}
+		return new Exchange(entity, stored);
+	}
+
+	//claim() inserts the key in the table, or returns the response another instance stored for it;
+	private StoredResponse claim(String key, String id, String requestHash) {
+		try {
+			records.claim(id, requestHash, Instant.now());
+			return null;
+		} catch(DataIntegrityViolationException e) {
+			IdempotencyRecord record = records.findById(id).orElseThrow(() -> new IdempotencyConflictException(key));
+			if(record.getRequestHash() != null && !record.getRequestHash().equals(requestHash)) {
+				throw new IdempotencyMismatchException(key);
+			}
+			if(record.getStatus() == null) {
+				throw new IdempotencyConflictException(key);
+			}
+			return new StoredResponse(record.getStatus(), record.getLocation(), record.getBody());
+		}
+	}
+
+	//await() waits for the response of the first request, and returns null when it failed;
+	private StoredResponse await(String key, CompletableFuture<StoredResponse> first) {
+		try {
+			return first.get(wait.toMillis(), TimeUnit.MILLISECONDS);
+		} catch(ExecutionException e) {
+			return null;
+		} catch(TimeoutException e) {
+			throw new IdempotencyConflictException(key);
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IdempotencyConflictException(key);
+		}
+	}
+
+	private static ResponseEntity<String> replay(StoredResponse stored) {
+		ResponseEntity.BodyBuilder builder = ResponseEntity.status(stored.status()).header(REPLAYED, "true");
+		if(stored.location() != null) {
+			builder.header(HttpHeaders.LOCATION, stored.location());
+		}
+		return builder.contentType(MediaTypes.HAL_JSON).body(stored.body());
+	}
+
+	//client() is the client of the request, as AdmissionInterceptor tells them apart;
+	private String client(WebRequest request) {
+		String apiKey = request.getHeader(clientHeader);
+		if(apiKey != null && !apiKey.isBlank()) {
+			return "key:" + apiKey;
+		}
+		return "address:" + ((ServletWebRequest) request).getRequest().getRemoteAddr();
+	}
+
+	private byte[] json(Object payload) {
+		try {
+			return objectMapper.writeValueAsBytes(payload);
+		} catch(JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static String sha256(byte[] bytes) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+		} catch(NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private String write(Object body) {
+		try {
+			return halMapper.writeValueAsString(body);
+		} catch(JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
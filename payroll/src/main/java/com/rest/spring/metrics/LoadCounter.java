@@ -0,0 +1,13 @@
+package com.rest.spring.metrics;
+
+import jakarta.persistence.PostLoad;
+
+//LoadCounter is the JPA entity listener of Employee and Order (@EntityListeners); it counts the entities loaded
+//from database in the current request; an entity found in the cache is not loaded, so it is not counted;
+public class LoadCounter {
+	
+	@PostLoad
+	void loaded(Object entity) {
+		RequestPhases.loaded();
+	}
+}
@@ -0,0 +1,27 @@
+package com.rest.spring.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener;
+import org.springframework.stereotype.Component;
+
+//RepositoryTimings adds the duration of every repository call to the database phase of the current request;
+//the timer of each call (spring.data.repository.invocations) is recorded by Spring Boot with the same listener mechanism;
+@Component
+public class RepositoryTimings implements BeanPostProcessor {
+	
+	private static final RepositoryMethodInvocationListener LISTENER =
+			invocation -> RequestPhases.database(invocation.getDuration(TimeUnit.NANOSECONDS));
+	
+	//the factory beans of the repositories are customized before they create the repositories;
+	//a BeanPostProcessor is created before the other beans, so it does not depend on any of them;
+	@Override
+	public Object postProcessBeforeInitialization(Object bean, String beanName) {
+		if(bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+			factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addInvocationListener(LISTENER));
+		}
+		return bean;
+	}
+}
@@ -0,0 +1,107 @@
+package com.rest.spring.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Timer;
+
+//RequestPhases collects where the time of one request goes: database (repository calls), assembly (the model assemblers)
+//and serialization (the message converter), plus how many SQL statements were executed and how many entities were loaded;
+//it is bound to the thread of the request by RequestPhasesFilter, and the instrumented code adds to it with the static methods;
+//outside a request (startup, benchmarks, the NDJSON streaming that runs on another thread) there is no current one, and
+//only the Micrometer timers are recorded;
+public final class RequestPhases {
+	
+	private static final ThreadLocal<RequestPhases> CURRENT = new ThreadLocal<>();
+	
+	private final long start = System.nanoTime();
+	private long databaseNanos;
+	private long assemblyNanos;
+	private long serializationStart;
+	private int statements;
+	private int entities;
+	
+	private RequestPhases() {}
+	
+	//begin() and end() are only called by RequestPhasesFilter;
+	static RequestPhases begin() {
+		RequestPhases phases = new RequestPhases();
+		CURRENT.set(phases);
+		return phases;
+	}
+	
+	static void end() {
+		CURRENT.remove();
+	}
+	
+	//assembly() runs one call of an assembler, records it in the given timer and adds it to the assembly of the request;
+	public static <T> T assembly(Timer timer, Supplier<T> assembly) {
+		long begin = System.nanoTime();
+		try {
+			return assembly.get();
+		} finally {
+			long nanos = System.nanoTime() - begin;
+			timer.record(nanos, TimeUnit.NANOSECONDS);
+			RequestPhases phases = CURRENT.get();
+			if(phases != null) {
+				phases.assemblyNanos += nanos;
+			}
+		}
+	}
+	
+	//database() adds the duration of one repository call;
+	static void database(long nanos) {
+		RequestPhases phases = CURRENT.get();
+		if(phases != null) {
+			phases.databaseNanos += nanos;
+		}
+	}
+	
+	//statement() counts one SQL statement prepared by Hibernate (see StatementCounter);
+	static void statement() {
+		RequestPhases phases = CURRENT.get();
+		if(phases != null) {
+			phases.statements++;
+		}
+	}
+	
+	//loaded() counts one entity loaded from database (see LoadCounter);
+	static void loaded() {
+		RequestPhases phases = CURRENT.get();
+		if(phases != null) {
+			phases.entities++;
+		}
+	}
+	
+	//serializing() marks the moment the handler has returned and the body starts to be written (see SerializationStart);
+	static void serializing() {
+		RequestPhases phases = CURRENT.get();
+		if(phases != null && phases.serializationStart == 0) {
+			phases.serializationStart = System.nanoTime();
+		}
+	}
+	
+	long totalNanos(long end) {
+		return end - start;
+	}
+	
+	long serializationNanos(long end) {
+		return serializationStart == 0 ? 0 : end - serializationStart;
+	}
+	
+	long getDatabaseNanos() {
+		return databaseNanos;
+	}
+	
+	long getAssemblyNanos() {
+		return assemblyNanos;
+	}
+	
+	int getStatements() {
+		return statements;
+	}
+	
+	int getEntities() {
+		return entities;
+	}
+}
@@ -0,0 +1,76 @@
+package com.rest.spring.metrics;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+//RequestPhasesFilter binds a RequestPhases to each request; at the end it records how many SQL statements and entities
+//the request needed (payroll.request.statements and payroll.request.entities), and it logs the requests slower than
+//payroll.slow-request.threshold with the time of each phase (0, the default, turns the log off);
+//the time of the handlers themselves is already recorded by Spring Boot (http.server.requests);
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RequestPhasesFilter extends OncePerRequestFilter {
+	
+	private static final Logger log = LoggerFactory.getLogger(RequestPhasesFilter.class);
+	
+	private final DistributionSummary statements;
+	private final DistributionSummary entities;
+	private final long thresholdNanos;
+	
+	public RequestPhasesFilter(MeterRegistry registry, @Value("${payroll.slow-request.threshold:0ms}") Duration threshold) {
+		this.statements = DistributionSummary.builder("payroll.request.statements")
+				.description("SQL statements executed by one request")
+				.register(registry);
+		this.entities = DistributionSummary.builder("payroll.request.entities")
+				.description("Entities loaded from database by one request")
+				.register(registry);
+		this.thresholdNanos = threshold.toNanos();
+	}
+	
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		
+		RequestPhases phases = RequestPhases.begin();
+		try {
+			chain.doFilter(request, response);
+		} finally {
+			RequestPhases.end();
+			record(request, response, phases);
+		}
+	}
+	
+	private void record(HttpServletRequest request, HttpServletResponse response, RequestPhases phases) {
+		statements.record(phases.getStatements());
+		entities.record(phases.getEntities());
+		
+		long end = System.nanoTime();
+		long total = phases.totalNanos(end);
+		if(thresholdNanos > 0 && total >= thresholdNanos) {
+			log.warn("Slow request {} {} ({}): {} ms, database {} ms, assembly {} ms, serialization {} ms, {} statements, {} entities",
+					request.getMethod(), request.getRequestURI(), response.getStatus(), millis(total),
+					millis(phases.getDatabaseNanos()), millis(phases.getAssemblyNanos()), millis(phases.serializationNanos(end)),
+					phases.getStatements(), phases.getEntities());
+		}
+	}
+	
+	private static long millis(long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+}
@@ -0,0 +1,16 @@
+package com.rest.spring.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+//StatementCounter is called by Hibernate for every SQL statement it prepares, and counts it in the current request;
+//it is registered in application.properties (hibernate.session_factory.statement_inspector) and leaves the SQL as it is;
+public class StatementCounter implements StatementInspector {
+	
+	private static final long serialVersionUID = 1L;
+	
+	@Override
+	public String inspect(String sql) {
+		RequestPhases.statement();
+		return sql;
+	}
+}
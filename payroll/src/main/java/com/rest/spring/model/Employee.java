@@ -2,21 +2,59 @@ package com.rest.spring.model;
 
 import java.util.Objects;
 
-import javax.persistence.Entity;
-import javax.persistence.GeneratedValue;
-import javax.persistence.Id;
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.rest.spring.metrics.LoadCounter;
 
 @Entity //It means that this class is entity now or a domain object for storing;
+//LoadCounter counts the employees loaded by each request (see RequestPhases);
+@EntityListeners(LoadCounter.class)
+//the indexes serve GET /employees/search: (role, id) the filter by role and its keyset pages, like the index of the orders
+//on (status, id); (last_name, first_name) the search by last name and by the beginning of the last name (LIKE 'Alm%');
+@Table(indexes = { @Index(name = "IDX_EMPLOYEE_ROLE_ID", columnList = "role, id"),
+		@Index(name = "IDX_EMPLOYEE_LAST_NAME_FIRST_NAME", columnList = "last_name, first_name") })
+//the employees are kept in the second-level cache of Hibernate (the region "employee", see application.conf): the loads
+//by id that do not go through EmployeeRepository.findById(), like the merge of an upsert, do not read the row again;
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "employee")
 public class Employee {
 	
-	//converts this instance variable in a property (attribute) of the entity as primary key with auto increment;
-	private @Id @GeneratedValue Long id; 
+	//converts this instance variable in a property (attribute) of the entity as primary key;
+	//the id comes from the sequence EMPLOYEE_SEQ; allocationSize makes Hibernate use the pooled optimizer, so it reserves
+	//50 ids in one call to the sequence and the inserts can be sent as JDBC batches (an identity column would disable them);
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "employee_seq")
+	@SequenceGenerator(name = "employee_seq", sequenceName = "EMPLOYEE_SEQ", allocationSize = 50)
+	private Long id; 
 	
+	//name is the full name, "firstName lastName", built once from the two parts and kept until one of them changes;
+	//it is not a column, the parts are (an employee serialized many times, e.g. from the cache, joins them only once);
+	@Transient
 	private String name;
 	private String firstName;
 	private String lastName;
 	private String role;
 	
+	//@Version is incremented by Hibernate on every update; it is the ETag of the employee and protects replaceEmployee()
+	//against lost updates. It travels in the ETag and If-Match headers, never in the body;
+	@Version
+	@JsonIgnore
+	private Long version;
+	
 	public Employee() {}
 	
 	
@@ -27,6 +65,12 @@ public class Employee {
 		this.lastName = lastName;
 		this.role = role;
 	}
+	
+	//this constructor is used by the list queries of EmployeeRepository (select new ...), for employees that are only serialized;
+	public Employee(Long id, String firstName, String lastName, String role) {
+		this(firstName, lastName, role);
+		this.id = id;
+	}
 
 
 
@@ -44,17 +88,74 @@ public class Employee {
 		this.id = id;
 	}
 
+	//getName() returns the full name, joined on the first call only; a missing part is left out (no "null");
 	public String getName() {
-		return firstName + " " +lastName;
+		String fullName = name;
+		if(fullName == null && (firstName != null || lastName != null)) {
+			fullName = firstName == null ? lastName : lastName == null ? firstName : firstName + " " + lastName;
+			name = fullName;
+		}
+		return fullName;
 	}
 
+	//setName() takes the last word of the full name as lastName and the words before it as firstName, with one scan from
+	//the end and no regex: "Maria Lucia Almeida" is firstName "Maria Lucia" and lastName "Almeida", "Ian" is firstName "Ian"
+	//without lastName; the spaces around the words are ignored and a run of spaces between them counts as one;
+	//a null or blank name clears both parts; the full name is joined again by getName() when it is needed;
 	public void setName(String name) {
-		String[] parts = name.split(" ");
-		this.firstName = parts[0];
-		this.lastName = parts[1];
-		//this.name = name;
+		this.firstName = null;
+		this.lastName = null;
+		this.name = null;
+		int end = name == null ? 0 : skipSpacesBack(name, name.length());
+		if(end == 0) {
+			return;
+		}
+		int lastStart = name.lastIndexOf(' ', end - 1) + 1;
+		int firstEnd = skipSpacesBack(name, lastStart);
+		if(firstEnd == 0) {
+			this.firstName = name.substring(lastStart, end);
+			return;
+		}
+		int firstStart = 0;
+		while(name.charAt(firstStart) == ' ') {
+			firstStart++;
+		}
+		this.firstName = collapseSpaces(name.substring(firstStart, firstEnd));
+		this.lastName = name.substring(lastStart, end);
+	}
+	
+	//skipSpacesBack() returns the index after the last non-space character before end (0 if there is none);
+	private static int skipSpacesBack(String name, int end) {
+		while(end > 0 && name.charAt(end - 1) == ' ') {
+			end--;
+		}
+		return end;
+	}
+	
+	//collapseSpaces() replaces the runs of spaces between the words by one space; the words are returned as they are,
+	//without a copy, when there is no such run;
+	private static String collapseSpaces(String words) {
+		if(words.indexOf("  ") < 0) {
+			return words;
+		}
+		StringBuilder collapsed = new StringBuilder(words.length());
+		for(int i = 0; i < words.length(); i++) {
+			char c = words.charAt(i);
+			if(c != ' ' || words.charAt(i - 1) != ' ') {
+				collapsed.append(c);
+			}
+		}
+		return collapsed.toString();
 	}
 
+	public Long getVersion() {
+		return version;
+	}
+	
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+	
 	public String getRole() {
 		return role;
 	}
@@ -72,6 +173,7 @@ public class Employee {
 
 	public void setFirstName(String firstName) {
 		this.firstName = firstName;
+		this.name = null;
 	}
 
 
@@ -84,6 +186,7 @@ public class Employee {
 
 	public void setLastName(String lastName) {
 		this.lastName = lastName;
+		this.name = null;
 	}
 
 
@@ -107,9 +210,13 @@ public class Employee {
 	}
 	
 	//This method generates a hash code for a sequence of input values;
+	//the same value as Objects.hash(id, firstName, lastName, role), without its varargs array;
 	@Override
 	public int hashCode() {
-		return Objects.hash(this.id, this.firstName, this.lastName, this.role);
+		int result = 31 + Objects.hashCode(this.id);
+		result = 31 * result + Objects.hashCode(this.firstName);
+		result = 31 * result + Objects.hashCode(this.lastName);
+		return 31 * result + Objects.hashCode(this.role);
 	}
 	
 	//This method returns a string with data of the object;
@@ -1,21 +1,63 @@
 package com.rest.spring.model;
 
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import com.rest.spring.compact.CompactPage;
 import com.rest.spring.controller.EmployeeController;
+import com.rest.spring.metrics.RequestPhases;
 
 // This class is a "component"; What does it mean in the Spring world? It means that it is a bean and Spring will detect it automatically;
 @Component
 //This class object converts types (employee) into RepresentationModel by toModel() method;
 public class EmployeeModelAssembler implements RepresentationModelAssembler<Employee, EntityModel<Employee>> {
-
+	
+	//the mappings of one() and all(), resolved once when the assembler is created;
+	private static final LinkTemplate ONE = LinkTemplate.of(EmployeeController.class, "one", Long.class, WebRequest.class);
+	private static final LinkTemplate ALL = LinkTemplate.of(EmployeeController.class, "all", Long.class, Long.class, Integer.class, WebRequest.class);
+	
+	//timers of the public methods (payroll.assembly), also added to the assembly phase of the request (see RequestPhases);
+	private static final Timer TO_MODEL = Metrics.timer("payroll.assembly", "assembler", "employee", "method", "toModel");
+	private static final Timer TO_PAGED_MODEL = Metrics.timer("payroll.assembly", "assembler", "employee", "method", "toPagedModel");
+	private static final Timer TO_COMPACT_PAGE = Metrics.timer("payroll.assembly", "assembler", "employee", "method", "toCompactPage");
+	private static final Timer TO_SEARCH_MODEL = Metrics.timer("payroll.assembly", "assembler", "employee", "method", "toSearchModel");
+	
+	//true (the default) builds the links of toModel() from the templates above; false uses linkTo(methodOn(...)) on every call;
+	//both produce the same links, the property "payroll.links.templates" only exists to compare them;
+	private final boolean templates;
+	
+	public EmployeeModelAssembler(@Value("${payroll.links.templates:true}") boolean templates) {
+		this.templates = templates;
+	}
 		
 	@Override
 	public EntityModel<Employee> toModel(Employee employee) {
+		return RequestPhases.assembly(TO_MODEL, () -> model(employee));
+	}
+	
+	private EntityModel<Employee> model(Employee employee) {
+		
+		//template mode: only the id is filled in the precomputed path, no proxy and no URI template expansion;
+		if(templates) {
+			return EntityModel.of(employee,
+					ONE.expand(employee.getId(), IanaLinkRelations.SELF),
+					ALL.toLink("employees"));
+		}
 		
 		//withRel() takes a string as argument to create a Link object that correspond to the root aggregate;
 		//linkTo() create a builder to build Link objects that point to MVC controllers;				
@@ -23,8 +65,79 @@ public class EmployeeModelAssembler implements RepresentationModelAssembler<Empl
 		//withSelfRel() creates a Link that correspond to a resource as a self link;
 		//Once these links have been created, of() creates a new EntityModel with links added to it (employee);
 		return EntityModel.of(employee,//
-				linkTo(methodOn(EmployeeController.class).one(employee.getId())).withSelfRel(),
-				linkTo(methodOn(EmployeeController.class).all()).withRel("employees"));
+				linkTo(methodOn(EmployeeController.class).one(employee.getId(), null)).withSelfRel(),
+				collectionLink(null, null, null).withRel("employees"));
+	}
+	
+	//toPagedModel() converts one keyset page of employees into a CollectionModel;
+	//next and prev links carry the last and first id of the page as cursors, and they are only added when such a page exists;
+	public CollectionModel<EntityModel<Employee>> toPagedModel(KeysetSlice<Employee> slice, Long after, Long before, int size) {
+		return RequestPhases.assembly(TO_PAGED_MODEL, () -> pagedModel(slice, after, before, size));
+	}
+	
+	private CollectionModel<EntityModel<Employee>> pagedModel(KeysetSlice<Employee> slice, Long after, Long before, int size) {
+		
+		List<EntityModel<Employee>> employees = slice.getContent().stream()
+				.map(this::model)
+				.collect(Collectors.toList());
+		
+		CollectionModel<EntityModel<Employee>> model = CollectionModel.of(employees,
+				collectionLink(after, before, size).withSelfRel());
+		if(slice.hasNext()) {
+			model.add(collectionLink(slice.getLast().getId(), null, size).withRel(IanaLinkRelations.NEXT));
+		}
+		if(slice.hasPrevious()) {
+			model.add(collectionLink(null, slice.getFirst().getId(), size).withRel(IanaLinkRelations.PREV));
+		}
+		return model;
+	}
+	
+	//toSearchModel() converts one page of the results of EmployeeController.search() into a CollectionModel;
+	//the self and next links keep the filters of the search; there is no prev link, the results are read forward only;
+	public CollectionModel<EntityModel<Employee>> toSearchModel(KeysetSlice<Employee> slice, String role, String lastName,
+			String prefix, Long after, int size) {
+		return RequestPhases.assembly(TO_SEARCH_MODEL, () -> searchModel(slice, role, lastName, prefix, after, size));
+	}
+	
+	private CollectionModel<EntityModel<Employee>> searchModel(KeysetSlice<Employee> slice, String role, String lastName,
+			String prefix, Long after, int size) {
+		
+		List<EntityModel<Employee>> employees = slice.getContent().stream()
+				.map(this::model)
+				.collect(Collectors.toList());
+		
+		CollectionModel<EntityModel<Employee>> model = CollectionModel.of(employees,
+				searchLink(role, lastName, prefix, after, size).withSelfRel());
+		if(slice.hasNext()) {
+			model.add(searchLink(role, lastName, prefix, slice.getLast().getId(), size).withRel(IanaLinkRelations.NEXT));
+		}
+		return model;
+	}
+	
+	//toCompactPage() converts one keyset page of employees into a CompactPage: the employees without links, the URI template
+	//of their self link and the links of the page, the same as the ones of toPagedModel();
+	public CompactPage<Employee> toCompactPage(KeysetSlice<Employee> slice, Long after, Long before, int size) {
+		return RequestPhases.assembly(TO_COMPACT_PAGE, () -> compactPage(slice, after, before, size));
+	}
+	
+	private CompactPage<Employee> compactPage(KeysetSlice<Employee> slice, Long after, Long before, int size) {
+		return new CompactPage<>(slice.getContent(),
+				Map.of(IanaLinkRelations.SELF.value(), ONE.toUriTemplate()),
+				collectionLink(after, before, size).getHref(),
+				slice.hasNext() ? collectionLink(slice.getLast().getId(), null, size).getHref() : null,
+				slice.hasPrevious() ? collectionLink(null, slice.getFirst().getId(), size).getHref() : null);
+	}
+	
+	//searchLink() points to search() with the filters that are not null, like collectionLink();
+	private static Link searchLink(String role, String lastName, String prefix, Long after, Integer size) {
+		return linkTo(methodOn(EmployeeController.class).search(role, lastName, prefix, after, KeysetSlice.linkSize(size), null)).withSelfRel().expand();
+	}
+	
+	//collectionLink() points to all(); the optional parameters left as null would be rendered as a template ({?after,before,size}),
+	//so expand() without arguments removes them and the link keeps the plain form, e.g. /employees or /employees?after=20&size=50;
+	//the default size is left out (see KeysetSlice.linkSize());
+	private static Link collectionLink(Long after, Long before, Integer size) {
+		return linkTo(methodOn(EmployeeController.class).all(after, before, KeysetSlice.linkSize(size), null)).withSelfRel().expand();
 	}
 
 }
@@ -0,0 +1,68 @@
+package com.rest.spring.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+//IdempotencyRecord is the response of a request sent with an Idempotency-Key, kept in the table IDEMPOTENCY_KEY when
+//payroll.idempotency.database=true, so that a retry is answered by any instance, and after a restart;
+//the row is inserted (claimed) before the request runs, without status: a retry that finds it so is still in progress;
+@Entity
+//the expired keys are deleted by created_at;
+@Table(name = "IDEMPOTENCY_KEY", indexes = @Index(name = "IDX_IDEMPOTENCY_KEY_CREATED_AT", columnList = "created_at"))
+public class IdempotencyRecord {
+	
+	//the key sent by the client, scoped to the client: the SHA-256 of both (see IdempotencyStore);
+	@Id
+	private String id;
+	
+	//the SHA-256 of the payload of the request, the retries must send the same;
+	@Column(length = 64)
+	private String requestHash;
+	
+	private Instant createdAt;
+	
+	//the HTTP status, the Location header and the body (HAL) of the response;
+	private Integer status;
+	
+	@Column(length = 2048)
+	private String location;
+	
+	@Column(length = 65536)
+	private String body;
+	
+	public IdempotencyRecord() {}
+	
+	public String getId() {
+		return id;
+	}
+	
+	public String getRequestHash() {
+		return requestHash;
+	}
+	
+	public Instant getCreatedAt() {
+		return createdAt;
+	}
+	
+	public Integer getStatus() {
+		return status;
+	}
+	
+	public String getLocation() {
+		return location;
+	}
+	
+	public String getBody() {
+		return body;
+	}
+	
+	@Override
+	public String toString() {
+		return "IdempotencyRecord{" + "id=" + this.id + ", createdAt=" + this.createdAt + ", status=" + this.status + '}';
+	}
+}
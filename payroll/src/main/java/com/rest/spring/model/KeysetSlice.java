@@ -0,0 +1,92 @@
+package com.rest.spring.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+//KeysetSlice is one page of a keyset (cursor) pagination on the id column;
+//Instead of OFFSET, the next page is requested with "id > last id" and the previous page with "id < first id",
+//so the database walks the primary key index and never counts or skips rows;
+public class KeysetSlice<T> {
+	
+	//size of a page when the client does not send one;
+	public static final int DEFAULT_SIZE = 20;
+	
+	//upper bound for the size of a page, so a client can not ask for the whole table at once;
+	public static final int MAX_SIZE = 500;
+	
+	private final List<T> content;
+	private final boolean hasNext;
+	private final boolean hasPrevious;
+	
+	private KeysetSlice(List<T> content, boolean hasNext, boolean hasPrevious) {
+		this.content = content;
+		this.hasNext = hasNext;
+		this.hasPrevious = hasPrevious;
+	}
+	
+	//size() returns the requested size clamped between 1 and MAX_SIZE, or DEFAULT_SIZE if it is absent;
+	public static int size(Integer requested) {
+		if(requested == null) {
+			return DEFAULT_SIZE;
+		}
+		return Math.max(1, Math.min(requested, MAX_SIZE));
+	}
+	
+	//linkSize() is the size written in the links of a page: none when it is the default one, so the links keep the plain
+	//form of the collection (/orders, /orders?after=20) and only a size chosen by the client is carried from page to page;
+	public static Integer linkSize(Integer size) {
+		return size == null || size == DEFAULT_SIZE ? null : size;
+	}
+	
+	//ascending() asks for one row more than the page size; the extra row only tells if there is a next page;
+	public static Pageable ascending(int size) {
+		return PageRequest.of(0, size + 1, Sort.by(Sort.Direction.ASC, "id"));
+	}
+	
+	//descending() is used when walking backwards from a cursor (before=...);
+	public static Pageable descending(int size) {
+		return PageRequest.of(0, size + 1, Sort.by(Sort.Direction.DESC, "id"));
+	}
+	
+	//forward() builds a page from rows read in ascending id order;
+	//hasPrevious is known by the caller: there is a previous page when the page started after a cursor;
+	public static <T> KeysetSlice<T> forward(List<T> rows, int size, boolean hasPrevious) {
+		boolean hasNext = rows.size() > size;
+		List<T> content = hasNext ? rows.subList(0, size) : rows;
+		return new KeysetSlice<>(content, hasNext, hasPrevious);
+	}
+	
+	//backward() builds a page from rows read in descending id order and puts them back in ascending order;
+	//there is always a next page, since the page ended before a cursor;
+	public static <T> KeysetSlice<T> backward(List<T> rows, int size) {
+		boolean hasPrevious = rows.size() > size;
+		List<T> content = new ArrayList<>(hasPrevious ? rows.subList(0, size) : rows);
+		Collections.reverse(content);
+		return new KeysetSlice<>(content, true, hasPrevious);
+	}
+	
+	public List<T> getContent() {
+		return content;
+	}
+	
+	public boolean hasNext() {
+		return hasNext && !content.isEmpty();
+	}
+	
+	public boolean hasPrevious() {
+		return hasPrevious && !content.isEmpty();
+	}
+	
+	public T getFirst() {
+		return content.get(0);
+	}
+	
+	public T getLast() {
+		return content.get(content.size() - 1);
+	}
+}
@@ -0,0 +1,109 @@
+package com.rest.spring.model;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+
+import java.lang.reflect.Method;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+//LinkTemplate is the mapping of one controller method, resolved only once (at startup), for building links to it;
+//linkTo(methodOn(...)) creates a proxy, records the invocation and expands a URI template on every call;
+//here the path is split around its {id} variable once, and a link is just base URI + prefix + id + suffix;
+public class LinkTemplate {
+	
+	//name of the request attribute that keeps the base URI of the current request for each controller;
+	private static final String BASE_URI_ATTRIBUTE = LinkTemplate.class.getName() + ".BASE_URI.";
+	
+	private final Class<?> controller;
+	private final String prefix;
+	private final String suffix;
+	
+	private LinkTemplate(Class<?> controller, String prefix, String suffix) {
+		this.controller = controller;
+		this.prefix = prefix;
+		this.suffix = suffix;
+	}
+	
+	//of() reads the @GetMapping, @PutMapping... of the given controller method and splits its path at the first variable;
+	//a path without variable, e.g. /employees, is kept whole;
+	public static LinkTemplate of(Class<?> controller, String methodName, Class<?>... parameterTypes) {
+		
+		Method method = ReflectionUtils.findMethod(controller, methodName, parameterTypes);
+		Assert.notNull(method, () -> "No method " + methodName + " in " + controller.getName());
+		
+		RequestMapping mapping = AnnotatedElementUtils.findMergedAnnotation(method, RequestMapping.class);
+		Assert.isTrue(mapping != null && mapping.path().length > 0, () -> "No mapping for " + method);
+		
+		String path = mapping.path()[0];
+		int start = path.indexOf('{');
+		if(start < 0) {
+			return new LinkTemplate(controller, path, null);
+		}
+		return new LinkTemplate(controller, path.substring(0, start), path.substring(path.indexOf('}', start) + 1));
+	}
+	
+	//expand() fills the variable of the path with id and returns the link with the given relation;
+	public Link expand(Object id, LinkRelation relation) {
+		return expand(baseUri(), id, relation);
+	}
+	
+	public Link expand(Object id, String relation) {
+		return expand(id, LinkRelation.of(relation));
+	}
+	
+	//this expand() takes the base URI from the caller, for a request that is not a servlet request (e.g. a WebFlux exchange);
+	public Link expand(String baseUri, Object id, LinkRelation relation) {
+		Assert.state(suffix != null, "The mapping has no variable to expand");
+		return Link.of(baseUri + prefix + id + suffix, relation);
+	}
+	
+	//toLink() returns the link of a path without variable;
+	public Link toLink(LinkRelation relation) {
+		return toLink(baseUri(), relation);
+	}
+	
+	public Link toLink(String relation) {
+		return toLink(LinkRelation.of(relation));
+	}
+	
+	public Link toLink(String baseUri, LinkRelation relation) {
+		return Link.of(baseUri + prefix, relation);
+	}
+	
+	//toUriTemplate() returns the URI template of the mapping with its variable named {id}, e.g. http://localhost:8080/employees/{id};
+	//it is given once to the client instead of one link per entity (see CompactPage);
+	public String toUriTemplate() {
+		Assert.state(suffix != null, "The mapping has no variable to expand");
+		return baseUri() + prefix + "{id}" + suffix;
+	}
+	
+	//baseUri() is the scheme, host, port and servlet mapping (plus the controller mapping, if any) that linkTo() would use;
+	//it depends on the request (Host and X-Forwarded headers), so it is computed once per request and kept as a request attribute;
+	private String baseUri() {
+		
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if(attributes == null) {
+			return resolveBaseUri();
+		}
+		
+		String name = BASE_URI_ATTRIBUTE + controller.getName();
+		String baseUri = (String) attributes.getAttribute(name, RequestAttributes.SCOPE_REQUEST);
+		if(baseUri == null) {
+			baseUri = resolveBaseUri();
+			attributes.setAttribute(name, baseUri, RequestAttributes.SCOPE_REQUEST);
+		}
+		return baseUri;
+	}
+	
+	private String resolveBaseUri() {
+		String uri = linkTo(controller).toUri().toString();
+		return uri.endsWith("/") ? uri.substring(0, uri.length() - 1) : uri;
+	}
+}
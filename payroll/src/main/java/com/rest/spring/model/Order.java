@@ -1,25 +1,64 @@
 package com.rest.spring.model;
 
 import java.util.Objects;
-import javax.persistence.Entity;
-import javax.persistence.GeneratedValue;
-import javax.persistence.Id;
-import javax.persistence.Table;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.type.SqlTypes;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.rest.spring.metrics.LoadCounter;
+import com.rest.spring.shard.ShardedSequenceGenerator;
 
 
 
 //@Entity becomes this class a entity;
 @Entity
 //@tTable defines a primary table with the name CUSTOMER_ORDER;
-@Table(name = "CUSTOMER_ORDER")
+//the index on (status, id) serves the queries by status, the counts and the keyset pages of GET /orders?status=...;
+@Table(name = "CUSTOMER_ORDER", indexes = @Index(name = "IDX_CUSTOMER_ORDER_STATUS_ID", columnList = "status, id"))
+//LoadCounter counts the orders loaded by each request (see RequestPhases);
+@EntityListeners(LoadCounter.class)
+//the orders are not in the second-level cache, unlike the employees: their transitions are bulk UPDATEs (see
+//OrderRepository.transition()), and Hibernate answers each one by emptying the whole region of the entity; the orders
+//read by id are kept by the "orders" cache of OrderRepository, which evicts them one by one;
 public class Order {
 	
-	//@Id and @GeneratedValue defines primary key and auto-increment, respectively;
-	private @Id @GeneratedValue Long id;
+	//@Id and @GeneratedValue defines primary key and its generation, respectively;
+	//the id comes from the sequence CUSTOMER_ORDER_SEQ with the pooled optimizer (50 ids per call), which keeps JDBC batching on;
+	//with the orders in several shards, each shard has its sequence and the ids are spread by shard (see ShardedSequenceGenerator);
+	@Id
+	@GeneratedValue(generator = "customer_order_seq")
+	@GenericGenerator(name = "customer_order_seq", type = ShardedSequenceGenerator.class, parameters = {
+			@Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "CUSTOMER_ORDER_SEQ"),
+			@Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50") })
+	private Long id;
 	
 	private String description;
+	
+	//the status is stored by name (e.g. 'IN_PROGRESS'), not by position, so reordering Status does not change the data;
+	//as a VARCHAR on every database (not the native enum type of H2), like in the Flyway migrations;
+	@Enumerated(EnumType.STRING)
+	@JdbcTypeCode(SqlTypes.VARCHAR)
 	private Status status;
 	
+	//@Version turns on optimistic locking: an update of a stale order (changed since it was read) fails instead of
+	//overwriting the other change; it is managed by Hibernate and by OrderRepository.transition(), never by clients;
+	@Version
+	@JsonIgnore
+	private Long version;
+	
 	public Order() {}
 
 	public Order(String description, Status status) {
@@ -27,6 +66,12 @@ public class Order {
 		this.description = description;
 		this.status = status;
 	}
+	
+	//this constructor is used by the list queries of OrderRepository (select new ...), for orders that are only serialized;
+	public Order(Long id, String description, Status status) {
+		this(description, status);
+		this.id = id;
+	}
 
 	
 	public Long getId() {
@@ -53,6 +98,10 @@ public class Order {
 		this.status = status;
 	}
 	
+	public Long getVersion() {
+		return version;
+	}
+	
 	
 	@Override
 	//equals() compares objects and their fields to identify if they are equal or not and return true or false, respectively;
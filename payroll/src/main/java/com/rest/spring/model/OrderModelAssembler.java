@@ -1,10 +1,25 @@
 package com.rest.spring.model;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 
+import com.rest.spring.compact.CompactPage;
 import com.rest.spring.controller.OrderController;
+import com.rest.spring.metrics.RequestPhases;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
@@ -13,10 +28,44 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 @Component
 //This class is a "component"; What does it mean in the Spring world? It means that it is a bean and Spring will detect it automatically;
 public class OrderModelAssembler implements RepresentationModelAssembler<Order,EntityModel<Order>> {
+	
+	//the mappings of the OrderController methods, resolved once; see EmployeeModelAssembler;
+	private static final LinkTemplate ONE = LinkTemplate.of(OrderController.class, "one", Long.class, WebRequest.class);
+	private static final LinkTemplate ALL = LinkTemplate.of(OrderController.class, "all", Long.class, Long.class, Integer.class, Status.class, WebRequest.class);
+	private static final LinkTemplate CANCEL = LinkTemplate.of(OrderController.class, "cancel", Long.class, WebRequest.class);
+	private static final LinkTemplate COMPLETE = LinkTemplate.of(OrderController.class, "complete", Long.class, WebRequest.class);
+	
+	//timers of the public methods (payroll.assembly); see EmployeeModelAssembler;
+	private static final Timer TO_MODEL = Metrics.timer("payroll.assembly", "assembler", "order", "method", "toModel");
+	private static final Timer TO_PAGED_MODEL = Metrics.timer("payroll.assembly", "assembler", "order", "method", "toPagedModel");
+	private static final Timer TO_COMPACT_PAGE = Metrics.timer("payroll.assembly", "assembler", "order", "method", "toCompactPage");
+	
+	//true (the default) uses the templates above; false uses linkTo(methodOn(...)), up to four proxies per order;
+	private final boolean templates;
+	
+	public OrderModelAssembler(@Value("${payroll.links.templates:true}") boolean templates) {
+		this.templates = templates;
+	}
 
 	@Override
 	//toModel() will convert Order in a RepresentationModel; Oder will be a DTO to collect links;
 	public EntityModel<Order> toModel(Order order) {
+		return RequestPhases.assembly(TO_MODEL, () -> model(order));
+	}
+	
+	private EntityModel<Order> model(Order order) {
+		
+		//template mode: the same links, built by filling the id in the precomputed paths;
+		if(templates) {
+			EntityModel<Order> orderModel = EntityModel.of(order,
+					ONE.expand(order.getId(), IanaLinkRelations.SELF),
+					ALL.toLink("orders"));
+			if(order.getStatus() == Status.IN_PROGRESS) {
+				orderModel.add(CANCEL.expand(order.getId(), "cancel"));
+				orderModel.add(COMPLETE.expand(order.getId(), "complete"));
+			}
+			return orderModel;
+		}
 		
 		//
 		EntityModel<Order> orderModel = EntityModel.of(order,
@@ -29,17 +78,65 @@ public class OrderModelAssembler implements RepresentationModelAssembler<Order,E
 				//This proxy will invoke a dummy method of the target method (one()), and it will record in proxy object created;
 				//linkTo() creates a link and returns it that point to a controller method (one()). So we build a mapping between a link and a method;
 				//withSelfRel() create the link from the Link built that corresponds to the self link of the resource;
-				linkTo(methodOn(OrderController.class).one(order.getId())).withSelfRel(),
+				linkTo(methodOn(OrderController.class).one(order.getId(), null)).withSelfRel(),
 				//idem for methodOn(), linkTo() and withRel();
 				//withRel() creates a Link object with a given link relation named "orders" that corresponds to the resource;
-				linkTo(methodOn(OrderController.class).all()).withRel("orders"));
+				collectionLink(null, null, null, null).withRel("orders"));
 		if(order.getStatus() == Status.IN_PROGRESS) {
 			//add() adds a given link to the resource;
 			//idem for methodOn(), linkTo() and withRel();
-			orderModel.add(linkTo(methodOn(OrderController.class).cancel(order.getId())).withRel("cancel"));
-			orderModel.add(linkTo(methodOn(OrderController.class).complete(order.getId())).withRel("complete"));
+			orderModel.add(linkTo(methodOn(OrderController.class).cancel(order.getId(), null)).withRel("cancel"));
+			orderModel.add(linkTo(methodOn(OrderController.class).complete(order.getId(), null)).withRel("complete"));
 		}
 		return orderModel;
 	}
+	
+	//toPagedModel() converts one keyset page of orders into a CollectionModel with next and prev links;
+	//see EmployeeModelAssembler.toPagedModel(); the status filter, if any, is kept in the links of the page;
+	public CollectionModel<EntityModel<Order>> toPagedModel(KeysetSlice<Order> slice, Long after, Long before, int size,
+			Status status) {
+		return RequestPhases.assembly(TO_PAGED_MODEL, () -> pagedModel(slice, after, before, size, status));
+	}
+	
+	private CollectionModel<EntityModel<Order>> pagedModel(KeysetSlice<Order> slice, Long after, Long before, int size,
+			Status status) {
+		
+		List<EntityModel<Order>> orders = slice.getContent().stream()
+				.map(this::model)
+				.collect(Collectors.toList());
+		
+		CollectionModel<EntityModel<Order>> model = CollectionModel.of(orders,
+				collectionLink(after, before, size, status).withSelfRel());
+		if(slice.hasNext()) {
+			model.add(collectionLink(slice.getLast().getId(), null, size, status).withRel(IanaLinkRelations.NEXT));
+		}
+		if(slice.hasPrevious()) {
+			model.add(collectionLink(null, slice.getFirst().getId(), size, status).withRel(IanaLinkRelations.PREV));
+		}
+		return model;
+	}
+	
+	//toCompactPage() converts one keyset page of orders into a CompactPage; see EmployeeModelAssembler.toCompactPage();
+	//the cancel and complete templates are given too: they only apply to the orders that are IN_PROGRESS;
+	public CompactPage<Order> toCompactPage(KeysetSlice<Order> slice, Long after, Long before, int size, Status status) {
+		return RequestPhases.assembly(TO_COMPACT_PAGE, () -> compactPage(slice, after, before, size, status));
+	}
+	
+	private CompactPage<Order> compactPage(KeysetSlice<Order> slice, Long after, Long before, int size, Status status) {
+		Map<String, String> templates = new LinkedHashMap<>();
+		templates.put(IanaLinkRelations.SELF.value(), ONE.toUriTemplate());
+		templates.put("cancel", CANCEL.toUriTemplate());
+		templates.put("complete", COMPLETE.toUriTemplate());
+		
+		return new CompactPage<>(slice.getContent(), templates,
+				collectionLink(after, before, size, status).getHref(),
+				slice.hasNext() ? collectionLink(slice.getLast().getId(), null, size, status).getHref() : null,
+				slice.hasPrevious() ? collectionLink(null, slice.getFirst().getId(), size, status).getHref() : null);
+	}
+	
+	//collectionLink() points to all() without the optional parameters that are null (expand() removes them from the template);
+	private static Link collectionLink(Long after, Long before, Integer size, Status status) {
+		return linkTo(methodOn(OrderController.class).all(after, before, KeysetSlice.linkSize(size), status, null)).withSelfRel().expand();
+	}
 
 }
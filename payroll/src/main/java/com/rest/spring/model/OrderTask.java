@@ -0,0 +1,130 @@
+package com.rest.spring.model;
+
+import java.time.Instant;
+import java.util.Objects;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.type.SqlTypes;
+
+import com.rest.spring.shard.ShardedSequenceGenerator;
+
+//OrderTask is one request to create an order, or to move one to COMPLETED or CANCELLED, queued in the table ORDER_TASK
+//(an outbox);
+//it is written in the transaction of the request that queues it, so an accepted task is never lost, and it is applied
+//later by OrderWorkers together with the other pending tasks (see OrderPipeline);
+@Entity
+//the workers read the pending tasks in order of id: the index on (state, id) gives them without scanning the done ones;
+@Table(name = "ORDER_TASK", indexes = @Index(name = "IDX_ORDER_TASK_STATE_ID", columnList = "state, id"))
+public class OrderTask {
+	
+	//the id comes from ORDER_TASK_SEQ like the one of an order (see Order), in the shard of its order;
+	@Id
+	@GeneratedValue(generator = "order_task_seq")
+	@GenericGenerator(name = "order_task_seq", type = ShardedSequenceGenerator.class, parameters = {
+			@Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "ORDER_TASK_SEQ"),
+			@Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50") })
+	private Long id;
+	
+	//the order of the task; none for the creation of an order until a worker inserted it;
+	private Long orderId;
+	
+	//the description of the order to create; none for a transition;
+	private String description;
+	
+	//the status the order will have: IN_PROGRESS for a new order, COMPLETED or CANCELLED for an existing one;
+	@Enumerated(EnumType.STRING)
+	@JdbcTypeCode(SqlTypes.VARCHAR)
+	private Status status;
+	
+	@Enumerated(EnumType.STRING)
+	@JdbcTypeCode(SqlTypes.VARCHAR)
+	private TaskState state;
+	
+	private Instant createdAt;
+	private Instant processedAt;
+	
+	public OrderTask() {}
+	
+	public OrderTask(Long orderId, Status status) {
+		this.orderId = orderId;
+		this.status = status;
+		this.state = TaskState.PENDING;
+		this.createdAt = Instant.now();
+	}
+	
+	//this constructor is the creation of an order with this description;
+	public OrderTask(String description) {
+		this(null, Status.IN_PROGRESS);
+		this.description = description;
+	}
+	
+	//created() is done by the worker that inserted the order of the task;
+	public void created(Long orderId, Instant processedAt) {
+		this.orderId = orderId;
+		this.state = TaskState.DONE;
+		this.processedAt = processedAt;
+	}
+	
+	public Long getId() {
+		return id;
+	}
+	
+	public Long getOrderId() {
+		return orderId;
+	}
+	
+	public String getDescription() {
+		return description;
+	}
+	
+	public Status getStatus() {
+		return status;
+	}
+	
+	public TaskState getState() {
+		return state;
+	}
+	
+	public Instant getCreatedAt() {
+		return createdAt;
+	}
+	
+	public Instant getProcessedAt() {
+		return processedAt;
+	}
+	
+	@Override
+	public boolean equals(Object o) {
+		if(this == o) {
+			return true;
+		}
+		if(!(o instanceof OrderTask)) {
+			return false;
+		}
+		OrderTask task = (OrderTask) o;
+		return Objects.equals(this.id, task.id) && Objects.equals(this.orderId, task.orderId)
+				&& this.status == task.status && this.state == task.state;
+	}
+	
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.id, this.orderId, this.status, this.state);
+	}
+	
+	@Override
+	public String toString() {
+		return "OrderTask{" + "id=" + this.id + ", orderId=" + this.orderId + ", status=" + this.status
+				+ ", state=" + this.state + '}';
+	}
+}
@@ -0,0 +1,27 @@
+package com.rest.spring.model;
+
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.server.RepresentationModelAssembler;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import com.rest.spring.controller.OrderController;
+
+//OrderTaskModelAssembler converts an OrderTask into an EntityModel with the link of the task (to poll it)
+//and the link of its order, once it has one (a new order is inserted by the worker);
+@Component
+public class OrderTaskModelAssembler implements RepresentationModelAssembler<OrderTask, EntityModel<OrderTask>> {
+	
+	private static final LinkTemplate TASK = LinkTemplate.of(OrderController.class, "task", Long.class);
+	private static final LinkTemplate ORDER = LinkTemplate.of(OrderController.class, "one", Long.class, WebRequest.class);
+	
+	@Override
+	public EntityModel<OrderTask> toModel(OrderTask task) {
+		EntityModel<OrderTask> model = EntityModel.of(task, TASK.expand(task.getId(), IanaLinkRelations.SELF));
+		if(task.getOrderId() != null) {
+			model.add(ORDER.expand(task.getOrderId(), "order"));
+		}
+		return model;
+	}
+}
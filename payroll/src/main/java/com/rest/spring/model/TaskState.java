@@ -0,0 +1,9 @@
+package com.rest.spring.model;
+
+//TaskState is the state of an OrderTask: waiting in the queue, applied to its order, or rejected because the order
+//was not IN_PROGRESS anymore when a worker took the task;
+public enum TaskState {
+	PENDING, //
+	DONE, //
+	REJECTED
+}
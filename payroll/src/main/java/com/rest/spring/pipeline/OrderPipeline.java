@@ -0,0 +1,34 @@
+package com.rest.spring.pipeline;
+
+import org.springframework.stereotype.Component;
+
+import com.rest.spring.model.Order;
+import com.rest.spring.model.OrderTask;
+import com.rest.spring.model.Status;
+import com.rest.spring.repository.OrderTaskRepository;
+
+//OrderPipeline is the entrance of the asynchronous processing of the orders: instead of writing the order, a request
+//only inserts an OrderTask (a small row in ORDER_TASK) and returns 202 (Accepted); OrderWorkers applies the tasks later,
+//many at a time, so a burst of requests costs one insert each, and the writes of the orders are done in bulk;
+//the client follows the task (GET /orders/tasks/{id}) until it is DONE or REJECTED;
+//the tasks are written in the shard bound by the caller (see OrderController.newOrder() and ShardInterceptor);
+@Component
+public class OrderPipeline {
+	
+	private final OrderTaskRepository taskRepository;
+	
+	public OrderPipeline(OrderTaskRepository taskRepository) {
+		this.taskRepository = taskRepository;
+	}
+	
+	//submitNew() queues the creation of an order: only its task is inserted here, with the description of the order;
+	//a worker inserts the order IN_PROGRESS, with the other new orders of its batch, and the task then links to it;
+	public OrderTask submitNew(Order order) {
+		return taskRepository.save(new OrderTask(order.getDescription()));
+	}
+	
+	//submit() queues the transition of an existing order to COMPLETED or CANCELLED;
+	public OrderTask submit(Long orderId, Status status) {
+		return taskRepository.save(new OrderTask(orderId, status));
+	}
+}
@@ -0,0 +1,205 @@
+package com.rest.spring.pipeline;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import com.rest.spring.etag.CollectionVersions;
+import com.rest.spring.events.OrderEventBus;
+import com.rest.spring.model.Order;
+import com.rest.spring.model.OrderTask;
+import com.rest.spring.model.Status;
+import com.rest.spring.model.TaskState;
+import com.rest.spring.repository.OrderRepository;
+import com.rest.spring.repository.OrderTaskRepository;
+import com.rest.spring.shard.OrderShards;
+
+//OrderWorkers applies the tasks queued by OrderPipeline; each worker polls ORDER_TASK for the pending tasks of its partition
+//(see OrderTaskRepository.findPending()) and applies up to batch-size of them in one transaction:
+//the new orders are inserted (one JDBC batch), the orders still IN_PROGRESS are locked, moved to their new status with
+//one UPDATE per status, and the tasks are marked DONE or REJECTED with one UPDATE per state; a worker polls again at
+//once while it finds full batches;
+//the partitions make the workers of one instance independent; with several instances, each order must be served by one;
+//with the orders in several shards (see OrderShards), each worker drains its partition in every shard, one after the other;
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class OrderWorkers {
+	
+	private static final Logger log = LoggerFactory.getLogger(OrderWorkers.class);
+	
+	private final OrderRepository orderRepository;
+	private final OrderTaskRepository taskRepository;
+	private final CollectionVersions versions;
+	private final OrderEventBus events;
+	private final Cache orders;
+	private final TransactionTemplate transactionTemplate;
+	private final OrderShards shards;
+	
+	private final int workers;
+	private final int batchSize;
+	private final Duration pollInterval;
+	
+	private final Counter done;
+	private final Counter rejected;
+	
+	private ScheduledExecutorService executor;
+	
+	public OrderWorkers(OrderRepository orderRepository, OrderTaskRepository taskRepository, CollectionVersions versions,
+			OrderEventBus events, CacheManager cacheManager, PlatformTransactionManager transactionManager, MeterRegistry registry,
+			OrderShards shards,
+			@Value("${payroll.orders.pipeline.workers:2}") int workers,
+			@Value("${payroll.orders.pipeline.batch-size:200}") int batchSize,
+			@Value("${payroll.orders.pipeline.poll-interval:100ms}") Duration pollInterval) {
+		this.orderRepository = orderRepository;
+		this.taskRepository = taskRepository;
+		this.versions = versions;
+		this.events = events;
+		this.orders = cacheManager.getCache("orders");
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.shards = shards;
+		this.workers = workers;
+		this.batchSize = batchSize;
+		this.pollInterval = pollInterval;
+		this.done = Counter.builder("payroll.orders.pipeline.tasks").tag("state", "done").register(registry);
+		this.rejected = Counter.builder("payroll.orders.pipeline.tasks").tag("state", "rejected").register(registry);
+		Gauge.builder("payroll.orders.pipeline.pending", () -> shards.fanOut(shard -> taskRepository.countByState(TaskState.PENDING))
+						.stream().mapToLong(Long::longValue).sum())
+				.description("Order tasks waiting for a worker")
+				.register(registry);
+	}
+	
+	//the workers start when the application is ready (after LoadDatabase), and take the tasks left by a previous run first;
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		AtomicInteger number = new AtomicInteger();
+		executor = Executors.newScheduledThreadPool(workers, runnable -> {
+			Thread thread = new Thread(runnable, "order-worker-" + number.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		});
+		for(int partition = 0; partition < workers; partition++) {
+			int worker = partition;
+			executor.scheduleWithFixedDelay(() -> drain(worker), 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+		}
+	}
+	
+	//the tasks being applied finish their transaction; the pending ones stay in the table for the next start;
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		if(executor != null) {
+			executor.shutdown();
+			executor.awaitTermination(10, TimeUnit.SECONDS);
+		}
+	}
+	
+	//drain() applies batches of the partition until a batch is not full, in each shard; an error is logged and the batch
+	//is retried at the next poll (an exception would cancel the scheduled worker);
+	private void drain(int partition) {
+		for(int shard = 0; shard < OrderShards.count(); shard++) {
+			try (OrderShards.Binding binding = shards.bind(shard)) {
+				while(!executor.isShutdown() && applyBatch(partition) == batchSize) {
+					//a full batch: there may be more pending tasks;
+				}
+			} catch (RuntimeException e) {
+				log.warn("Order worker {} failed in shard {}, the tasks will be retried", partition, shard, e);
+			}
+		}
+	}
+	
+	//applyBatch() applies up to batchSize pending tasks of the partition in one transaction and returns how many it took;
+	int applyBatch(int partition) {
+		Batch batch = transactionTemplate.execute(tx -> {
+			List<OrderTask> tasks = taskRepository.findPending(OrderShards.count(), workers, partition,
+					PageRequest.of(0, batchSize, Sort.by("id")));
+			if(tasks.isEmpty()) {
+				return Batch.EMPTY;
+			}
+			
+			//the new orders are inserted first, IN_PROGRESS like after a synchronous PUT /orders; their ids come from the
+			//pooled sequence and the inserts are sent in JDBC batches at the flush; their tasks are done with their ids;
+			Instant now = Instant.now();
+			List<Long> created = new ArrayList<>();
+			Set<Long> orderIds = new HashSet<>();
+			for(OrderTask task : tasks) {
+				if(task.getOrderId() == null) {
+					Long orderId = orderRepository.save(new Order(task.getDescription(), Status.IN_PROGRESS)).getId();
+					task.created(orderId, now);
+					created.add(orderId);
+				} else {
+					orderIds.add(task.getOrderId());
+				}
+			}
+			Set<Long> inProgress = orderIds.isEmpty() ? new HashSet<>() : new HashSet<>(orderRepository.lockInProgress(orderIds));
+			
+			//the tasks are taken in the order they were queued: the first task of an order applies, the next ones of
+			//the same order are rejected, like a complete() after a cancel();
+			Map<Status, List<Long>> transitions = new EnumMap<>(Status.class);
+			List<Long> doneTasks = new ArrayList<>();
+			List<Long> rejectedTasks = new ArrayList<>();
+			for(OrderTask task : tasks) {
+				if(task.getState() == TaskState.DONE) {
+					//a new order, created above;
+					continue;
+				}
+				if(inProgress.remove(task.getOrderId())) {
+					transitions.computeIfAbsent(task.getStatus(), status -> new ArrayList<>()).add(task.getOrderId());
+					doneTasks.add(task.getId());
+				} else {
+					rejectedTasks.add(task.getId());
+				}
+			}
+			
+			transitions.forEach((status, ids) -> orderRepository.transitionAll(ids, status));
+			//the counts are the tasks this batch finished, not the ones another worker finished first;
+			int doneCount = doneTasks.isEmpty() ? 0 : taskRepository.finish(doneTasks, TaskState.DONE, now);
+			int rejectedCount = rejectedTasks.isEmpty() ? 0 : taskRepository.finish(rejectedTasks, TaskState.REJECTED, now);
+			return new Batch(tasks.size(), created, transitions, created.size() + doneCount, rejectedCount);
+		});
+		
+		//after the commit: the cached orders are stale, the collection has changed and the subscribers are told;
+		if(!batch.created().isEmpty() || !batch.transitions().isEmpty()) {
+			batch.transitions().forEach((status, ids) -> ids.forEach(orders::evict));
+			versions.changed(CollectionVersions.ORDERS);
+			batch.created().forEach(id -> events.publish(id, Status.IN_PROGRESS));
+			batch.transitions().forEach((status, ids) -> ids.forEach(id -> events.publish(id, status)));
+		}
+		done.increment(batch.done());
+		rejected.increment(batch.rejected());
+		return batch.taken();
+	}
+	
+	//Batch is what one transaction of applyBatch() did: the tasks taken, the orders created, the orders moved to each
+	//status and the tasks done and rejected;
+	private record Batch(int taken, List<Long> created, Map<Status, List<Long>> transitions, int done, int rejected) {
+		static final Batch EMPTY = new Batch(0, List.of(), Map.of(), 0, 0);
+	}
+}
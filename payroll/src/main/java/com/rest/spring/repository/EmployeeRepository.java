@@ -1,9 +1,108 @@
 package com.rest.spring.repository;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import com.rest.spring.model.Employee;
 
+//the entities read by id are kept in the "employees" cache;
+@CacheConfig(cacheNames = "employees")
 public interface EmployeeRepository extends JpaRepository<Employee, Long> {
+	
+	//findById() is read through the "employees" cache: a hit does not touch the database;
+	//the cache is bounded by size and by time since the entry was written (see spring.cache.caffeine.spec);
+	@Override
+	@Cacheable(key = "#p0")
+	Optional<Employee> findById(Long id);
+	
+	//save() evicts the saved entity after the commit, so a read after an update or an upsert never returns the old one;
+	//the entity is not put: only the reads fill the cache (see LeasedCaffeineCache);
+	@Override
+	@CacheEvict(key = "#result.id")
+	<S extends Employee> S save(S entity);
+	
+	@Override
+	@CacheEvict(key = "#result.id")
+	<S extends Employee> S saveAndFlush(S entity);
+	
+	//saveAll() is used by the bulk endpoints; the updated entities may be in the cache, so it is emptied;
+	@Override
+	@CacheEvict(allEntries = true)
+	<S extends Employee> List<S> saveAll(Iterable<S> entities);
+	
+	@Override
+	@CacheEvict(key = "#p0")
+	void deleteById(Long id);
+	
+	//findVersionById() reads only the version of one entity (the ETag), without loading it;
+	@Query("select e.version from Employee e where e.id = :id")
+	Optional<Long> findVersionById(@Param("id") Long id);
+	
+	//ROW selects the columns of a listed employee into a new Employee, which is not managed: the pages are read only to be
+	//serialized, so they do not need the persistence context (no entity, no snapshot, no dirty checking at flush);
+	//the version is not read;
+	String ROW = "select new com.rest.spring.model.Employee(e.id, e.firstName, e.lastName, e.role) from Employee e ";
+	
+	//keyset pagination: the rows after (or before) a given id, limited and ordered by the Pageable;
+	//the pages are in the query cache of Hibernate (the region "default-query-results-region", see application.conf):
+	//a page read again is not queried while the table does not change; any insert, update or delete of EMPLOYEE
+	//invalidates the cached pages (the region "default-update-timestamps-region" keeps the time of the last change);
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+	@Query(ROW + "where e.id > :id")
+	List<Employee> findByIdGreaterThan(@Param("id") Long id, Pageable pageable);
+	
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+	@Query(ROW + "where e.id < :id")
+	List<Employee> findByIdLessThan(@Param("id") Long id, Pageable pageable);
+	
+	//search: the employees with a role, a last name or a last name that starts with a prefix, in keyset pages after an id;
+	//StartingWith escapes the % and _ of the prefix, so it is always a LIKE 'prefix%' that can use the index;
+	//these stay derived queries, but their entities are read-only: Hibernate keeps no snapshot of them and never checks them;
+	//they are cached like the pages: the query cache keeps the ids found, and the employees come from the region "employee";
+	@QueryHints({ @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+			@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true") })
+	List<Employee> findByRoleAndIdGreaterThan(String role, Long id, Pageable pageable);
+	
+	@QueryHints({ @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+			@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true") })
+	List<Employee> findByLastNameAndIdGreaterThan(String lastName, Long id, Pageable pageable);
+	
+	@QueryHints({ @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+			@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true") })
+	List<Employee> findByLastNameStartingWithAndIdGreaterThan(String prefix, Long id, Pageable pageable);
+	
+	@QueryHints({ @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+			@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true") })
+	List<Employee> findByRoleAndLastNameAndIdGreaterThan(String role, String lastName, Long id, Pageable pageable);
+	
+	@QueryHints({ @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+			@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true") })
+	List<Employee> findByRoleAndLastNameStartingWithAndIdGreaterThan(String role, String prefix, Long id, Pageable pageable);
+	
+	//streamAll() reads the whole table through a forward-only JDBC cursor; it must be consumed inside a transaction and closed;
+	//the fetch size tells the driver how many rows to bring in each round trip, and read-only skips Hibernate's snapshots;
+	@QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+	@Query("select e from Employee e order by e.id")
+	Stream<Employee> streamAll();
+	
+	//streamRows() is the cursor of the exports (GET /employees/export): the same forward-only cursor, over the rows of ROW,
+	//which are not managed, so the persistence context stays empty whatever the size of the table;
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+	@Query(ROW + "order by e.id")
+	Stream<Employee> streamRows();
 
 }
@@ -0,0 +1,35 @@
+package com.rest.spring.repository;
+
+import java.time.Instant;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.rest.spring.model.IdempotencyRecord;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+	
+	//claim() inserts the key and the hash of the request without response; the primary key makes it fail (DataIntegrityViolationException) when the
+	//key is already there, so only one request, on any instance, runs for a key; save() would merge instead;
+	@Modifying
+	@Transactional
+	@Query(value = "insert into IDEMPOTENCY_KEY (ID, REQUEST_HASH, CREATED_AT) values (:id, :requestHash, :createdAt)",
+			nativeQuery = true)
+	int claim(@Param("id") String id, @Param("requestHash") String requestHash, @Param("createdAt") Instant createdAt);
+	
+	//complete() stores the response of a claimed key; it joins the transaction of the request, if any (see IdempotencyStore);
+	@Modifying
+	@Transactional
+	@Query("update IdempotencyRecord r set r.status = :status, r.location = :location, r.body = :body where r.id = :id")
+	int complete(@Param("id") String id, @Param("status") int status, @Param("location") String location,
+			@Param("body") String body);
+	
+	//purge() deletes the keys older than the time to live, in one DELETE;
+	@Modifying
+	@Transactional
+	@Query("delete from IdempotencyRecord r where r.createdAt < :before")
+	int purge(@Param("before") Instant before);
+}
@@ -1,11 +1,131 @@
 package com.rest.spring.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.rest.spring.model.Order;
+import com.rest.spring.model.Status;
 
 // OrderRepository is a JpaRepository that it is a JPA specific extension of Repository;
 //This interface creates a central repository that captures the domain type and domain id's type to manage by operations as CRUD;
+//the entities read by id are kept in the "orders" cache;
+@CacheConfig(cacheNames = "orders")
 public interface OrderRepository extends JpaRepository<Order, Long> {
+	
+	//findById() is read through the "orders" cache: a hit does not touch the database;
+	//the cache is bounded by size and by time since the entry was written (see spring.cache.caffeine.spec);
+	@Override
+	@Cacheable(key = "#p0")
+	Optional<Order> findById(Long id);
+	
+	//save() evicts the saved entity after the commit, so a read after an update or an upsert never returns the old one;
+	//the entity is not put: only the reads fill the cache (see LeasedCaffeineCache);
+	@Override
+	@CacheEvict(key = "#result.id")
+	<S extends Order> S save(S entity);
+	
+	@Override
+	@CacheEvict(key = "#result.id")
+	<S extends Order> S saveAndFlush(S entity);
+	
+	//saveAll() is used by the bulk endpoints; the updated entities may be in the cache, so it is emptied;
+	@Override
+	@CacheEvict(allEntries = true)
+	<S extends Order> List<S> saveAll(Iterable<S> entities);
+	
+	@Override
+	@CacheEvict(key = "#p0")
+	void deleteById(Long id);
+	
+	//transition() moves an order from the expected status to a new one in a single conditional UPDATE and returns the number
+	//of updated rows: 1 if the order had the expected status, 0 if it does not exist or another request changed it first;
+	//the version is incremented like Hibernate does on a versioned update, and the cached order is evicted after the commit
+	//(see CacheConfiguration), so a reader can not cache the old row again between the eviction and the commit;
+	//clearAutomatically removes the old state of the order from the persistence context, so the next read sees the new status;
+	@Transactional
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@CacheEvict(key = "#p0")
+	@Query("update Order o set o.status = :status, o.version = o.version + 1 where o.id = :id and o.status = :expected")
+	int transition(@Param("id") Long id, @Param("expected") Status expected, @Param("status") Status status);
+	
+	//the same transition, only applied if the order still has the given version (If-Match of the client);
+	@Transactional
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@CacheEvict(key = "#p0")
+	@Query("update Order o set o.status = :status, o.version = o.version + 1 "
+			+ "where o.id = :id and o.status = :expected and o.version = :version")
+	int transition(@Param("id") Long id, @Param("expected") Status expected, @Param("status") Status status,
+			@Param("version") Long version);
+	
+	//lockInProgress() returns the ids, among the given ones, of the orders that are still IN_PROGRESS, and locks their rows
+	//until the end of the transaction (SELECT ... FOR UPDATE), so that a concurrent cancel() or complete() waits for the
+	//bulk transition of OrderWorkers instead of racing with it;
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select o.id from Order o where o.id in :ids and o.status = com.rest.spring.model.Status.IN_PROGRESS")
+	List<Long> lockInProgress(@Param("ids") Collection<Long> ids);
+	
+	//transitionAll() moves many orders to a status in one UPDATE; the caller has locked them with lockInProgress()
+	//and evicts them from the cache;
+	@Modifying
+	@Query("update Order o set o.status = :status, o.version = o.version + 1 where o.id in :ids")
+	int transitionAll(@Param("ids") Collection<Long> ids, @Param("status") Status status);
+	
+	//findVersionById() reads only the version of one entity (the ETag), without loading it;
+	@Query("select o.version from Order o where o.id = :id")
+	Optional<Long> findVersionById(@Param("id") Long id);
+	
+	//ROW selects the columns of a listed order into a new Order, which is not managed: the pages are read only to be
+	//serialized, so they do not need the persistence context (no entity, no snapshot, no dirty checking at flush);
+	//the version is not read, the ETag of a page is the one of the collection;
+	String ROW = "select new com.rest.spring.model.Order(o.id, o.description, o.status) from Order o ";
+	
+	//keyset pagination: the rows after (or before) a given id, limited and ordered by the Pageable;
+	//unlike the ones of the employees, the pages and the counts of the orders are not in the query cache of Hibernate:
+	//every transition is a bulk UPDATE of CUSTOMER_ORDER, which invalidates all the cached results of the table;
+	@Query(ROW + "where o.id > :id")
+	List<Order> findByIdGreaterThan(@Param("id") Long id, Pageable pageable);
+	
+	@Query(ROW + "where o.id < :id")
+	List<Order> findByIdLessThan(@Param("id") Long id, Pageable pageable);
+	
+	//the same pages, filtered by status; they use the index on (status, id) of CUSTOMER_ORDER;
+	@Query(ROW + "where o.status = :status and o.id > :id")
+	List<Order> findByStatusAndIdGreaterThan(@Param("status") Status status, @Param("id") Long id, Pageable pageable);
+	
+	@Query(ROW + "where o.status = :status and o.id < :id")
+	List<Order> findByStatusAndIdLessThan(@Param("status") Status status, @Param("id") Long id, Pageable pageable);
+	
+	//countGroupByStatus() counts the orders of every status in one aggregate query;
+	@Query("select o.status as status, count(o) as total from Order o group by o.status")
+	List<StatusCount> countGroupByStatus();
+	
+	//streamAll() reads the whole table through a forward-only JDBC cursor; see EmployeeRepository.streamAll();
+	@QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+	@Query("select o from Order o order by o.id")
+	Stream<Order> streamAll();
+	
+	//streamRows() is the cursor of the exports (GET /orders/export); see EmployeeRepository.streamRows();
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+	@Query(ROW + "order by o.id")
+	Stream<Order> streamRows();
 
 }
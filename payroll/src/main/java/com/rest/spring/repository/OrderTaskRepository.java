@@ -0,0 +1,43 @@
+package com.rest.spring.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import jakarta.persistence.LockModeType;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.rest.spring.model.OrderTask;
+import com.rest.spring.model.TaskState;
+
+public interface OrderTaskRepository extends JpaRepository<OrderTask, Long> {
+	
+	//findPending() returns the oldest pending tasks of one partition: a worker only takes the tasks of the orders whose id
+	//modulo the number of workers is its partition, so two workers never take the same task or the same order; a new
+	//order has no id yet, its task is in the partition of the id of the task;
+	//the ids of the orders of a shard are all the same modulo the shards (see ShardedSequenceGenerator), so the id is
+	//divided by the number of shards first, or some partitions would get every order of the shard and the others none;
+	//the tasks are locked until the end of the batch: a worker of another instance waits, then skips the ones finished;
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select t from OrderTask t where t.state = com.rest.spring.model.TaskState.PENDING "
+			+ "and mod(coalesce(t.orderId, t.id) / :shards, :partitions) = :partition")
+	List<OrderTask> findPending(@Param("shards") long shards, @Param("partitions") int partitions,
+			@Param("partition") int partition, Pageable pageable);
+	
+	//finish() sets the final state of many tasks in one UPDATE, and returns how many it changed; only the tasks still
+	//PENDING are changed: a task finished by another worker (of another instance, or a batch retried after a failure)
+	//keeps its first state, DONE is never turned into REJECTED or the other way round;
+	@Modifying
+	@Query("update OrderTask t set t.state = :state, t.processedAt = :processedAt "
+			+ "where t.id in :ids and t.state = com.rest.spring.model.TaskState.PENDING")
+	int finish(@Param("ids") Collection<Long> ids, @Param("state") TaskState state, @Param("processedAt") Instant processedAt);
+	
+	//countByState() feeds the gauge of the pending tasks (payroll.orders.pipeline.pending);
+	long countByState(TaskState state);
+}
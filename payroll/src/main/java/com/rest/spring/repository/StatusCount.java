@@ -0,0 +1,11 @@
+package com.rest.spring.repository;
+
+import com.rest.spring.model.Status;
+
+//StatusCount is a projection of OrderRepository.countGroupByStatus(): one row per status with its number of orders;
+public interface StatusCount {
+	
+	Status getStatus();
+	
+	long getTotal();
+}
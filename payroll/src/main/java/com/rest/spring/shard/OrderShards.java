@@ -0,0 +1,142 @@
+package com.rest.spring.shard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+//OrderShards partitions the orders (and their tasks) across payroll.orders.shards databases, by hash of the id: the order
+//with the id n is in the shard n modulo the number of shards (ShardedSequenceGenerator gives the ids so);
+//the shard of a thread is bound here, and ShardRoutingDataSource opens the connections of its transactions in that shard;
+//an unbound thread works in the shard 0, the database of the employees and of everything else;
+//with one shard (the default) there is nothing to route: the methods run the queries once, on the calling thread;
+@Component
+public class OrderShards {
+
+	private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+	//the number of shards, static for ShardedSequenceGenerator, which Hibernate creates outside of Spring;
+	private static volatile int count = 1;
+
+	//the number of shards before this application, given back when it stops (the next one in the JVM, e.g. in the tests);
+	private final int previousCount;
+
+	//the shard of the next new order: the writes go round the shards;
+	private final AtomicInteger next = new AtomicInteger();
+
+	//the queries of a fan-out run at the same time, one virtual thread per shard;
+	private final ExecutorService fanOut = Executors.newVirtualThreadPerTaskExecutor();
+
+	public OrderShards(@Value("${payroll.orders.shards:1}") int shards) {
+		previousCount = count;
+		count = Math.max(1, shards);
+	}
+
+	public static int count() {
+		return count;
+	}
+
+	//current() is the shard bound to this thread, 0 when none is;
+	public static int current() {
+		Integer shard = CURRENT.get();
+		return shard != null ? shard : 0;
+	}
+
+	//shardOf() is the shard of an order or a task, from its id;
+	public int shardOf(long id) {
+		return (int) Math.floorMod(id, (long) count);
+	}
+
+	//next() is the shard of a new order;
+	public int next() {
+		return Math.floorMod(next.getAndIncrement(), count);
+	}
+
+	//bind() binds the shard to this thread until the Binding is closed; it must be done before a transaction starts,
+	//the connection of a transaction is taken once, at its first statement;
+	public Binding bind(int shard) {
+		Integer previous = CURRENT.get();
+		CURRENT.set(shard);
+		return new Binding(previous);
+	}
+
+	//on() runs work in the shard;
+	public <T> T on(int shard, Supplier<T> work) {
+		try (Binding binding = bind(shard)) {
+			return work.get();
+		}
+	}
+
+	//fanOut() runs the query in every shard, at the same time, and returns the results in the order of the shards;
+	public <T> List<T> fanOut(IntFunction<T> query) {
+		if(count == 1) {
+			return List.of(query.apply(0));
+		}
+		List<Future<T>> futures = new ArrayList<>(count);
+		for(int shard = 0; shard < count; shard++) {
+			int target = shard;
+			futures.add(fanOut.submit(() -> on(target, () -> query.apply(target))));
+		}
+		List<T> results = new ArrayList<>(count);
+		try {
+			for(Future<T> future : futures) {
+				results.add(future.get());
+			}
+		} catch(ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw new IllegalStateException(e.getCause());
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while querying the shards", e);
+		}
+		return results;
+	}
+
+	//merge() runs a query of a page in every shard and merges the rows in the order of the page, up to limit rows;
+	//each shard returns at most limit rows, so the merge sorts at most limit rows per shard;
+	public <T> List<T> merge(IntFunction<List<T>> query, Comparator<? super T> order, int limit) {
+		List<List<T>> pages = fanOut(query);
+		if(pages.size() == 1) {
+			return pages.get(0);
+		}
+		return pages.stream().flatMap(List::stream).sorted(order).limit(limit).toList();
+	}
+
+	@PreDestroy
+	public void close() {
+		fanOut.shutdown();
+		count = previousCount;
+	}
+
+	//Binding restores the shard that was bound before, if any;
+	public static final class Binding implements AutoCloseable {
+
+		private final Integer previous;
+
+		private Binding(Integer previous) {
+			this.previous = previous;
+		}
+
+		@Override
+		public void close() {
+			if(previous == null) {
+				CURRENT.remove();
+			} else {
+				CURRENT.set(previous);
+			}
+		}
+	}
+}
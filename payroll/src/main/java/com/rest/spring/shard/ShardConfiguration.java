@@ -0,0 +1,70 @@
+package com.rest.spring.shard;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+//ShardConfiguration turns on the sharding of the orders, with payroll.orders.shards > 1 (see application-sharded.properties):
+//the DataSource of the application becomes a ShardRoutingDataSource over one pool per shard, each one sized like the
+//single pool (spring.datasource.hikari.*); the shard 0 is spring.datasource.url, the others payroll.orders.shard-url
+//with {shard} replaced by their number; Flyway migrates the shard 0 at startup as usual, and the others here;
+//the ShardInterceptor binds the shard of the order of the requests to /orders/{id}, /orders/{id}/... and /orders/tasks/{id};
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnExpression("${payroll.orders.shards:1} > 1")
+public class ShardConfiguration implements WebMvcConfigurer {
+	
+	private final OrderShards shards;
+	
+	public ShardConfiguration(OrderShards shards) {
+		this.shards = shards;
+	}
+	
+	//dataSource() replaces the DataSource of Spring Boot (which backs off when one is defined); it depends on OrderShards,
+	//so the number of shards is known before Hibernate generates the first id;
+	@Bean
+	public ShardRoutingDataSource dataSource(DataSourceProperties properties, Environment environment,
+			@Value("${payroll.orders.shard-url}") String shardUrl,
+			@Value("${spring.flyway.enabled:true}") boolean flyway) {
+		Map<Object, Object> pools = new HashMap<>();
+		for(int shard = 0; shard < OrderShards.count(); shard++) {
+			String url = shard == 0 ? properties.determineUrl() : shardUrl.replace("{shard}", Integer.toString(shard));
+			HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url).build();
+			Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+			pool.setPoolName("shard-" + shard);
+			if(flyway && shard > 0) {
+				Flyway.configure().dataSource(pool).load().migrate();
+			}
+			pools.put(shard, pool);
+		}
+		
+		ShardRoutingDataSource dataSource = new ShardRoutingDataSource();
+		dataSource.setTargetDataSources(pools);
+		dataSource.setDefaultTargetDataSource(pools.get(0));
+		//a shard that is not configured is an error, not the shard 0;
+		dataSource.setLenientFallback(false);
+		dataSource.afterPropertiesSet();
+		return dataSource;
+	}
+	
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new ShardInterceptor(shards)).addPathPatterns("/orders/**");
+	}
+}
@@ -0,0 +1,45 @@
+package com.rest.spring.shard;
+
+import java.util.Map;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+//ShardInterceptor binds the shard of the order (or of the task) whose id is in the path to the thread of the request,
+//before the handler opens a transaction: GET /orders/{id}, cancel, complete and GET /orders/tasks/{id} run in one shard,
+//like with a single database, the UPDATE of a transition included; the requests without an id are left unbound,
+//the controller chooses their shards (a new order, a page, the stats);
+public class ShardInterceptor implements HandlerInterceptor {
+	
+	private static final String BINDING = ShardInterceptor.class.getName() + ".binding";
+	
+	private final OrderShards shards;
+	
+	public ShardInterceptor(OrderShards shards) {
+		this.shards = shards;
+	}
+	
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if(request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE) instanceof Map<?, ?> variables
+				&& variables.get("id") instanceof String id) {
+			try {
+				request.setAttribute(BINDING, shards.bind(shards.shardOf(Long.parseLong(id))));
+			} catch(NumberFormatException e) {
+				//not an id: the handler answers 400 when it converts it;
+			}
+		}
+		return true;
+	}
+	
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		if(request.getAttribute(BINDING) instanceof OrderShards.Binding binding) {
+			request.removeAttribute(BINDING);
+			binding.close();
+		}
+	}
+}
@@ -0,0 +1,28 @@
+package com.rest.spring.shard;
+
+import java.io.Closeable;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+//ShardRoutingDataSource is the DataSource of the application when the orders are sharded (see ShardConfiguration):
+//each connection is taken from the pool of the shard bound to the thread (OrderShards), the shard 0 when none is;
+//JPA, Flyway and the transactions see one DataSource, the shards are below it;
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+	
+	@Override
+	protected Object determineCurrentLookupKey() {
+		return OrderShards.current();
+	}
+	
+	//close() closes the pools of the shards when the application stops;
+	@Override
+	public void close() {
+		getResolvedDataSources().values().forEach(dataSource -> {
+			if(dataSource instanceof HikariDataSource pool) {
+				pool.close();
+			}
+		});
+	}
+}
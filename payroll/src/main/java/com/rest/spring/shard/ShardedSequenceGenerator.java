@@ -0,0 +1,46 @@
+package com.rest.spring.shard;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+//ShardedSequenceGenerator gives the ids of the orders and of their tasks; with one shard it is the sequence with the
+//pooled optimizer, as before; with several, each shard has its own sequence (in its database), read in blocks of
+//increment_size values like the pooled optimizer, and the id is the value times the number of shards plus the shard:
+//the ids are unique across the shards without any coordination, and the shard of an id is id modulo the shards;
+//the id is generated in the shard bound to the thread, the one its row is inserted into;
+public class ShardedSequenceGenerator extends SequenceStyleGenerator {
+	
+	private final Map<Integer, Block> blocks = new ConcurrentHashMap<>();
+	
+	@Override
+	public Object generate(SharedSessionContractImplementor session, Object object) {
+		int count = OrderShards.count();
+		if(count == 1) {
+			return super.generate(session, object);
+		}
+		int shard = OrderShards.current();
+		long value = blocks.computeIfAbsent(shard, key -> new Block())
+				.next(() -> getDatabaseStructure().buildCallback(session).getNextValue().makeValue().longValue(),
+						getDatabaseStructure().getIncrementSize());
+		return value * count + shard;
+	}
+	
+	//Block is the values of one shard not used yet: [next, end);
+	private static final class Block {
+		
+		private long next;
+		private long end;
+		
+		synchronized long next(LongSupplier sequence, int size) {
+			if(next >= end) {
+				next = sequence.getAsLong();
+				end = next + size;
+			}
+			return next++;
+		}
+	}
+}
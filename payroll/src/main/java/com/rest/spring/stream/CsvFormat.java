@@ -0,0 +1,57 @@
+package com.rest.spring.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+
+//CsvFormat writes and reads the entities as CSV (text/csv), for the export and import of the employees and orders:
+//a header line with the names of the columns, then one line per entity; the values are written and parsed by Jackson,
+//one line at a time, like the NDJSON of NdjsonStreamer and of the batch endpoints;
+@Component
+public class CsvFormat {
+	
+	public static final String TEXT_CSV_VALUE = "text/csv";
+	public static final MediaType TEXT_CSV = MediaType.parseMediaType(TEXT_CSV_VALUE);
+	
+	//the properties of the entities that are not columns (the full name of an employee, for instance) are not written;
+	//an empty value is read as null (an employee without id is created), and a column the entity does not have is skipped;
+	private final CsvMapper mapper = CsvMapper.builder()
+			.enable(JsonGenerator.Feature.IGNORE_UNKNOWN)
+			.enable(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+			.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+			.build();
+	
+	//accepts() tells if the Accept header asks for CSV; the exports write NDJSON otherwise;
+	public static boolean accepts(String accept) {
+		return accept != null && MediaType.parseMediaTypes(accept).stream().anyMatch(TEXT_CSV::equalsTypeAndSubtype);
+	}
+	
+	//writer() returns the writer of type with these columns, in this order, and the header line;
+	public ObjectWriter writer(Class<?> type, String... columns) {
+		return writer(type, true, columns);
+	}
+	
+	//writer() with header false writes the lines only, for the parts of an export after the first (the shards of the orders);
+	public ObjectWriter writer(Class<?> type, boolean header, String... columns) {
+		CsvSchema.Builder schema = CsvSchema.builder().setUseHeader(header);
+		for(String column : columns) {
+			schema.addColumn(column);
+		}
+		return mapper.writerFor(type).with(schema.build());
+	}
+	
+	//readValues() iterates the lines of a CSV body as entities of type; the columns are given by the header line;
+	public <T> MappingIterator<T> readValues(Class<T> type, InputStream body) throws IOException {
+		return mapper.readerFor(type).with(CsvSchema.emptySchema().withHeader()).readValues(body);
+	}
+}
@@ -0,0 +1,90 @@
+package com.rest.spring.stream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+//NdjsonStreamer writes entities to the response as newline delimited JSON (one object per line) while they are read from
+//a JDBC cursor, so the memory used by a response does not depend on the size of the table;
+@Component
+public class NdjsonStreamer {
+	
+	//the persistence context of the running transaction; every written row is detached from it, so it does not grow;
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	//the cursor (Stream<T>) must be read inside a transaction, and StreamingResponseBody runs on another thread,
+	//after the controller method returned. So the transaction is opened here by a read-only TransactionTemplate;
+	private final TransactionTemplate transactionTemplate;
+	
+	private final ObjectWriter writer;
+	
+	public NdjsonStreamer(PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+		this.writer = objectMapper.writer();
+	}
+	
+	//stream() returns a body that opens the cursor given by rows, writes each row followed by a new line and detaches it;
+	public <T> StreamingResponseBody stream(Supplier<Stream<T>> rows) {
+		return out -> transactionTemplate.executeWithoutResult(status -> {
+			try (Stream<T> stream = rows.get()) {
+				Iterator<T> iterator = stream.iterator();
+				while(iterator.hasNext()) {
+					T row = iterator.next();
+					writeLine(out, row);
+					entityManager.detach(row);
+				}
+				out.flush();
+			} catch (IOException e) {
+				//the client went away; the transaction is rolled back (it is read-only anyway) and the cursor is closed;
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+	
+	//stream() with the writer of another format (the CSV of CsvFormat): the rows go through one SequenceWriter, which
+	//writes the header line of the format once and keeps its generator and buffer for the whole response; the rows are
+	//sent when the buffer is full, not one by one;
+	public <T> StreamingResponseBody stream(Supplier<Stream<T>> rows, ObjectWriter format) {
+		ObjectWriter sequenceWriter = format.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+				.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		return out -> transactionTemplate.executeWithoutResult(status -> {
+			try (Stream<T> stream = rows.get(); SequenceWriter sequence = sequenceWriter.writeValues(out)) {
+				Iterator<T> iterator = stream.iterator();
+				while(iterator.hasNext()) {
+					T row = iterator.next();
+					sequence.write(row);
+					entityManager.detach(row);
+				}
+				sequence.flush();
+				out.flush();
+			} catch (IOException e) {
+				//idem: the client went away;
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+	
+	private void writeLine(OutputStream out, Object row) throws IOException {
+		out.write(writer.writeValueAsBytes(row));
+		out.write('\n');
+	}
+}
@@ -0,0 +1,27 @@
+-- Schema of the payroll, as mapped by Employee and Order (the profile "prod" validates the mapping against it);
+-- the same SQL runs on H2 (MODE=PostgreSQL) and on PostgreSQL;
+
+-- the sequences are incremented by 50, the allocationSize of the pooled optimizer of the entities;
+CREATE SEQUENCE employee_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE customer_order_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE employee (
+	id BIGINT NOT NULL,
+	name VARCHAR(255),
+	first_name VARCHAR(255),
+	last_name VARCHAR(255),
+	role VARCHAR(255),
+	version BIGINT,
+	PRIMARY KEY (id)
+);
+
+CREATE TABLE customer_order (
+	id BIGINT NOT NULL,
+	description VARCHAR(255),
+	status VARCHAR(255),
+	version BIGINT,
+	PRIMARY KEY (id)
+);
+
+-- the queries by status, the counts and the keyset pages of GET /orders?status=...;
+CREATE INDEX idx_customer_order_status_id ON customer_order (status, id);
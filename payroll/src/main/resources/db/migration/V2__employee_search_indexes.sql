@@ -0,0 +1,3 @@
+-- Indexes of GET /employees/search (see Employee);
+CREATE INDEX idx_employee_role_id ON employee (role, id);
+CREATE INDEX idx_employee_last_name_first_name ON employee (last_name, first_name);
@@ -0,0 +1,2 @@
+-- The full name of an employee is built from first_name and last_name (Employee.getName()); the column was never written;
+ALTER TABLE employee DROP COLUMN name;
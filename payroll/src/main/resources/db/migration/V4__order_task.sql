@@ -0,0 +1,15 @@
+-- Outbox of the asynchronous order processing (see OrderTask and OrderWorkers);
+CREATE SEQUENCE order_task_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE order_task (
+	id BIGINT NOT NULL,
+	order_id BIGINT,
+	status VARCHAR(255),
+	state VARCHAR(255),
+	created_at TIMESTAMP(6) WITH TIME ZONE,
+	processed_at TIMESTAMP(6) WITH TIME ZONE,
+	PRIMARY KEY (id)
+);
+
+-- the workers read the pending tasks in order of id;
+CREATE INDEX idx_order_task_state_id ON order_task (state, id);
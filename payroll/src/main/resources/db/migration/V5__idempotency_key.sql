@@ -0,0 +1,12 @@
+-- Responses of the requests sent with an Idempotency-Key (see IdempotencyRecord and IdempotencyStore);
+CREATE TABLE idempotency_key (
+	id VARCHAR(255) NOT NULL,
+	created_at TIMESTAMP(6) WITH TIME ZONE,
+	status INTEGER,
+	location VARCHAR(2048),
+	body VARCHAR(65536),
+	PRIMARY KEY (id)
+);
+
+-- the expired keys are deleted by created_at;
+CREATE INDEX idx_idempotency_key_created_at ON idempotency_key (created_at);
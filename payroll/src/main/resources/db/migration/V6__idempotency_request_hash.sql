@@ -0,0 +1,3 @@
+-- The digest of the payload of the first request with a key: a request with the same key and another payload gets a 422
+-- (see IdempotencyStore); the keys claimed before have none and match any payload until they expire;
+ALTER TABLE idempotency_key ADD COLUMN request_hash VARCHAR(64);
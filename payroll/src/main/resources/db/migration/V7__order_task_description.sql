@@ -0,0 +1,3 @@
+-- The tasks of "Prefer: respond-async" on PUT /orders carry the description of the order a worker will insert
+-- (see OrderPipeline.submitNew()); the transitions have none;
+ALTER TABLE order_task ADD COLUMN description VARCHAR(255);
@@ -0,0 +1,15 @@
+package com.rest.spring.reactive;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.hateoas.config.EnableHypermediaSupport;
+import org.springframework.hateoas.config.EnableHypermediaSupport.HypermediaType;
+
+//ReactiveConfiguration is only used by the reactive application (Maven profile "reactive" and Spring profile "reactive");
+//@EnableHypermediaSupport registers the HAL encoders of WebFlux, so the responses are the same as the servlet ones;
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableHypermediaSupport(type = HypermediaType.HAL)
+public class ReactiveConfiguration {
+
+}
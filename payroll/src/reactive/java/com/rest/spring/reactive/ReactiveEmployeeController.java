@@ -0,0 +1,123 @@
+package com.rest.spring.reactive;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.rest.spring.etag.EntityTags;
+import com.rest.spring.exception.EmployeeNotFoundException;
+import com.rest.spring.model.Employee;
+import com.rest.spring.model.KeysetSlice;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+//ReactiveEmployeeController is the WebFlux version of EmployeeController: the same URIs and HAL representations,
+//but no method blocks a thread while the database works; a handful of event-loop threads serve all the clients;
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveEmployeeController {
+	
+	private final ReactiveEmployeeRepository repository;
+	private final ReactiveEmployeeModelAssembler assembler;
+	
+	public ReactiveEmployeeController(ReactiveEmployeeRepository repository, ReactiveEmployeeModelAssembler assembler) {
+		this.repository = repository;
+		this.assembler = assembler;
+	}
+	
+	//keyset pages of employees, like EmployeeController.all();
+	@GetMapping("/employees")
+	public Mono<CollectionModel<EntityModel<Employee>>> all(@RequestParam(required = false) Long after,
+			@RequestParam(required = false) Long before, @RequestParam(required = false) Integer size,
+			ServerWebExchange exchange) {
+		
+		int pageSize = KeysetSlice.size(size);
+		
+		Mono<KeysetSlice<Employee>> slice = before != null
+				? repository.findByIdLessThan(before, pageSize + 1).collectList()
+						.map(rows -> KeysetSlice.backward(rows, pageSize))
+				: repository.findByIdGreaterThan(after != null ? after : Long.MIN_VALUE, pageSize + 1).collectList()
+						.map(rows -> KeysetSlice.forward(rows, pageSize, after != null));
+		
+		return slice.map(page -> assembler.toPagedModel(page, after, before, pageSize, exchange));
+	}
+	
+	//streaming mode (Accept: application/x-ndjson): the employees are written as the driver emits them;
+	//a slow client lowers the demand and the reading of rows waits for it (backpressure), so nothing piles up in memory;
+	@GetMapping(value = "/employees", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public Flux<Employee> allAsStream() {
+		return repository.findAll();
+	}
+	
+	@PostMapping("/employees")
+	public Mono<ResponseEntity<EntityModel<Employee>>> newEmployee(@RequestBody Employee newEmployee, ServerWebExchange exchange) {
+		return repository.insert(newEmployee)
+				.flatMap(employee -> assembler.toModel(employee, exchange))
+				.map(entityModel -> ResponseEntity
+						.created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri())
+						.body(entityModel));
+	}
+	
+	@GetMapping("/employees/{id}")
+	public Mono<EntityModel<Employee>> one(@PathVariable Long id, ServerWebExchange exchange) {
+		return repository.findById(id)
+				.switchIfEmpty(Mono.error(() -> new EmployeeNotFoundException(id)))
+				.flatMap(employee -> assembler.toModel(employee, exchange));
+	}
+	
+	//the same rules as EmployeeController.replaceEmployee():
+	//- an existing employee is replaced under the id of the path, only if If-Match (when sent) is its current ETag;
+	//- a missing employee is created under a new id, as the servlet version does, unless If-Match is sent (412);
+	//- the response carries the ETag of the new version;
+	//the update is conditional on the version that was read, so a concurrent replace between the read and the update
+	//is a 412 too, where the servlet version fails with the optimistic lock of Hibernate;
+	@PutMapping("/employees/{id}")
+	public Mono<ResponseEntity<Employee>> replaceEmployee(@RequestBody Employee newEmployee, @PathVariable Long id,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		return repository.findVersionById(id)
+				.flatMap(version -> replace(newEmployee, id, version, ifMatch))
+				.switchIfEmpty(Mono.defer(() -> ifMatch != null
+						? Mono.just(ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).<Employee>build())
+						: repository.insert(newEmployee).map(ReactiveEmployeeController::withETag)));
+	}
+	
+	private Mono<ResponseEntity<Employee>> replace(Employee newEmployee, Long id, Long version, String ifMatch) {
+		Long expected = EntityTags.version(ifMatch);
+		if(expected != null && !expected.equals(version)) {
+			return Mono.just(ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build());
+		}
+		newEmployee.setId(id);
+		return repository.update(newEmployee, version).map(rows -> {
+			if(rows == 0) {
+				return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).<Employee>build();
+			}
+			newEmployee.setVersion(version + 1);
+			return withETag(newEmployee);
+		});
+	}
+	
+	private static ResponseEntity<Employee> withETag(Employee employee) {
+		return ResponseEntity.ok().eTag(EntityTags.of(employee.getVersion())).body(employee);
+	}
+	
+	@DeleteMapping("/employees/{id}")
+	public Mono<ResponseEntity<Void>> deleteEmployee(@PathVariable Long id) {
+		return repository.deleteById(id).thenReturn(ResponseEntity.noContent().<Void>build());
+	}
+}
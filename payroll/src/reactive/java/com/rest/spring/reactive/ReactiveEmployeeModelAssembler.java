@@ -0,0 +1,63 @@
+package com.rest.spring.reactive;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.hateoas.server.reactive.ReactiveRepresentationModelAssembler;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.rest.spring.model.Employee;
+import com.rest.spring.model.KeysetSlice;
+import com.rest.spring.model.LinkTemplate;
+
+import reactor.core.publisher.Mono;
+
+//ReactiveEmployeeModelAssembler is the reactive version of EmployeeModelAssembler: the same links, from the same templates,
+//with the base URI of the WebFlux exchange instead of the servlet request;
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveEmployeeModelAssembler implements ReactiveRepresentationModelAssembler<Employee, EntityModel<Employee>> {
+	
+	private static final LinkTemplate ONE = LinkTemplate.of(ReactiveEmployeeController.class, "one", Long.class,
+			ServerWebExchange.class);
+	private static final LinkTemplate ALL = LinkTemplate.of(ReactiveEmployeeController.class, "all", Long.class, Long.class,
+			Integer.class, ServerWebExchange.class);
+	
+	@Override
+	public Mono<EntityModel<Employee>> toModel(Employee employee, ServerWebExchange exchange) {
+		return Mono.just(toModel(employee, ReactiveLinks.baseUri(exchange)));
+	}
+	
+	//toPagedModel() converts one keyset page into a CollectionModel with self, next and prev links;
+	//see EmployeeModelAssembler.toPagedModel();
+	public CollectionModel<EntityModel<Employee>> toPagedModel(KeysetSlice<Employee> slice, Long after, Long before, int size,
+			ServerWebExchange exchange) {
+		
+		String baseUri = ReactiveLinks.baseUri(exchange);
+		List<EntityModel<Employee>> employees = slice.getContent().stream()
+				.map(employee -> toModel(employee, baseUri))
+				.collect(Collectors.toList());
+		
+		CollectionModel<EntityModel<Employee>> model = CollectionModel.of(employees,
+				ReactiveLinks.page(ALL, baseUri, IanaLinkRelations.SELF, after, before, size, null));
+		if(slice.hasNext()) {
+			model.add(ReactiveLinks.page(ALL, baseUri, IanaLinkRelations.NEXT, slice.getLast().getId(), null, size, null));
+		}
+		if(slice.hasPrevious()) {
+			model.add(ReactiveLinks.page(ALL, baseUri, IanaLinkRelations.PREV, null, slice.getFirst().getId(), size, null));
+		}
+		return model;
+	}
+	
+	EntityModel<Employee> toModel(Employee employee, String baseUri) {
+		return EntityModel.of(employee,
+				ONE.expand(baseUri, employee.getId(), IanaLinkRelations.SELF),
+				ALL.toLink(baseUri, LinkRelation.of("employees")));
+	}
+}
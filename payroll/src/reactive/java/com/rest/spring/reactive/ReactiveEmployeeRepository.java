@@ -0,0 +1,100 @@
+package com.rest.spring.reactive;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.stereotype.Repository;
+
+import com.rest.spring.model.Employee;
+
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+//ReactiveEmployeeRepository reads and writes the EMPLOYEE table created by Hibernate through R2DBC, without blocking;
+//the SQL is written by hand, so Employee does not need R2DBC mapping annotations next to the JPA ones;
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveEmployeeRepository {
+	
+	private static final String COLUMNS = "SELECT id, first_name, last_name, role FROM employee ";
+	
+	private final DatabaseClient client;
+	
+	public ReactiveEmployeeRepository(DatabaseClient client) {
+		this.client = client;
+	}
+	
+	//findAll() emits the employees as the driver reads them; the subscriber's demand (backpressure) paces the reading;
+	public Flux<Employee> findAll() {
+		return client.sql(COLUMNS + "ORDER BY id").map(ReactiveEmployeeRepository::toEmployee).all();
+	}
+	
+	public Mono<Employee> findById(Long id) {
+		return client.sql(COLUMNS + "WHERE id = :id").bind("id", id).map(ReactiveEmployeeRepository::toEmployee).one();
+	}
+	
+	//keyset pagination, like EmployeeRepository.findByIdGreaterThan() and findByIdLessThan();
+	public Flux<Employee> findByIdGreaterThan(Long id, int limit) {
+		return client.sql(COLUMNS + "WHERE id > :id ORDER BY id LIMIT :limit")
+				.bind("id", id).bind("limit", limit)
+				.map(ReactiveEmployeeRepository::toEmployee).all();
+	}
+	
+	public Flux<Employee> findByIdLessThan(Long id, int limit) {
+		return client.sql(COLUMNS + "WHERE id < :id ORDER BY id DESC LIMIT :limit")
+				.bind("id", id).bind("limit", limit)
+				.map(ReactiveEmployeeRepository::toEmployee).all();
+	}
+	
+	//findVersionById() reads only the version of one employee (the ETag), like EmployeeRepository.findVersionById();
+	public Mono<Long> findVersionById(Long id) {
+		return client.sql("SELECT version FROM employee WHERE id = :id").bind("id", id)
+				.map(row -> row.get("version", Long.class)).one();
+	}
+	
+	//insert() takes a new id from EMPLOYEE_SEQ and inserts the employee with it; the version starts at 0, as Hibernate does;
+	//the sequence is shared with Hibernate's pooled optimizer: a value read here is never used by Hibernate for another row;
+	public Mono<Employee> insert(Employee employee) {
+		return client.sql("SELECT NEXT VALUE FOR employee_seq").map(row -> row.get(0, Long.class)).one()
+				.flatMap(id -> bindFields(client.sql("INSERT INTO employee (id, first_name, last_name, role, version) "
+						+ "VALUES (:id, :firstName, :lastName, :role, 0)").bind("id", id), employee)
+						.fetch().rowsUpdated()
+						.map(rows -> {
+							employee.setId(id);
+							employee.setVersion(0L);
+							return employee;
+						}));
+	}
+	
+	//update() replaces the employee only if it still has the given version, and increments it as Hibernate does on a
+	//versioned update; it returns the number of updated rows: 0 means the employee was deleted or changed in between;
+	public Mono<Long> update(Employee employee, Long version) {
+		return bindFields(client.sql("UPDATE employee SET first_name = :firstName, last_name = :lastName, role = :role, "
+				+ "version = version + 1 WHERE id = :id AND version = :version")
+				.bind("id", employee.getId()).bind("version", version), employee)
+				.fetch().rowsUpdated();
+	}
+	
+	public Mono<Long> deleteById(Long id) {
+		return client.sql("DELETE FROM employee WHERE id = :id").bind("id", id).fetch().rowsUpdated();
+	}
+	
+	private static GenericExecuteSpec bindFields(GenericExecuteSpec spec, Employee employee) {
+		spec = bind(spec, "firstName", employee.getFirstName());
+		spec = bind(spec, "lastName", employee.getLastName());
+		return bind(spec, "role", employee.getRole());
+	}
+	
+	private static GenericExecuteSpec bind(GenericExecuteSpec spec, String name, String value) {
+		return value != null ? spec.bind(name, value) : spec.bindNull(name, String.class);
+	}
+	
+	private static Employee toEmployee(Row row, RowMetadata metadata) {
+		Employee employee = new Employee(row.get("first_name", String.class), row.get("last_name", String.class),
+				row.get("role", String.class));
+		employee.setId(row.get("id", Long.class));
+		return employee;
+	}
+}
@@ -0,0 +1,48 @@
+package com.rest.spring.reactive;
+
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.rest.spring.model.KeysetSlice;
+import com.rest.spring.model.LinkTemplate;
+
+//ReactiveLinks gives the base URI of a WebFlux exchange to the LinkTemplate of the controllers, like linkTo() does for
+//a servlet request, and builds the links of the pages of a collection;
+final class ReactiveLinks {
+	
+	private ReactiveLinks() {}
+	
+	//baseUri() is the scheme, host, port and context path of the request, without its path and query;
+	static String baseUri(ServerWebExchange exchange) {
+		ServerHttpRequest request = exchange.getRequest();
+		String uri = UriComponentsBuilder.fromHttpRequest(request)
+				.replacePath(request.getPath().contextPath().value())
+				.replaceQuery(null)
+				.build()
+				.toUriString();
+		return uri.endsWith("/") ? uri.substring(0, uri.length() - 1) : uri;
+	}
+	
+	//page() returns the link of a collection with the parameters that are not null, in the order of the servlet controllers,
+	//e.g. /orders?after=20&size=50&status=IN_PROGRESS; the default size is left out (see KeysetSlice.linkSize());
+	static Link page(LinkTemplate all, String baseUri, LinkRelation relation, Long after, Long before, Integer size,
+			Object status) {
+		UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(all.toLink(baseUri, relation).getHref());
+		if(after != null) {
+			builder.queryParam("after", after);
+		}
+		if(before != null) {
+			builder.queryParam("before", before);
+		}
+		if(KeysetSlice.linkSize(size) != null) {
+			builder.queryParam("size", size);
+		}
+		if(status != null) {
+			builder.queryParam("status", status);
+		}
+		return Link.of(builder.build().toUriString(), relation);
+	}
+}
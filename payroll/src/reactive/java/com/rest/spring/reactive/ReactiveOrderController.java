@@ -0,0 +1,122 @@
+package com.rest.spring.reactive;
+
+import java.util.Map;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.hateoas.mediatype.problem.Problem;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.rest.spring.exception.OrderNotFoundException;
+import com.rest.spring.model.KeysetSlice;
+import com.rest.spring.model.Order;
+import com.rest.spring.model.Status;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+//ReactiveOrderController is the WebFlux version of OrderController; see ReactiveEmployeeController;
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveOrderController {
+	
+	private final ReactiveOrderRepository orderRepository;
+	private final ReactiveOrderModelAssembler assembler;
+	
+	public ReactiveOrderController(ReactiveOrderRepository orderRepository, ReactiveOrderModelAssembler assembler) {
+		this.orderRepository = orderRepository;
+		this.assembler = assembler;
+	}
+	
+	//keyset pages of orders with an optional status filter, like OrderController.all();
+	@GetMapping("/orders")
+	public Mono<CollectionModel<EntityModel<Order>>> all(@RequestParam(required = false) Long after,
+			@RequestParam(required = false) Long before, @RequestParam(required = false) Integer size,
+			@RequestParam(required = false) Status status, ServerWebExchange exchange) {
+		
+		int pageSize = KeysetSlice.size(size);
+		
+		Mono<KeysetSlice<Order>> slice = before != null
+				? orderRepository.findByIdLessThan(status, before, pageSize + 1).collectList()
+						.map(rows -> KeysetSlice.backward(rows, pageSize))
+				: orderRepository.findByIdGreaterThan(status, after != null ? after : Long.MIN_VALUE, pageSize + 1).collectList()
+						.map(rows -> KeysetSlice.forward(rows, pageSize, after != null));
+		
+		return slice.map(page -> assembler.toPagedModel(page, after, before, pageSize, status, exchange));
+	}
+	
+	//streaming mode with backpressure; see ReactiveEmployeeController.allAsStream();
+	@GetMapping(value = "/orders", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public Flux<Order> allAsStream() {
+		return orderRepository.findAll();
+	}
+	
+	@GetMapping("/orders/stats")
+	public Mono<Map<Status, Long>> stats() {
+		return orderRepository.countGroupByStatus();
+	}
+	
+	@GetMapping("/orders/{id}")
+	public Mono<EntityModel<Order>> one(@PathVariable Long id, ServerWebExchange exchange) {
+		return findOrder(id).flatMap(order -> assembler.toModel(order, exchange));
+	}
+	
+	@PutMapping("/orders")
+	public Mono<ResponseEntity<EntityModel<Order>>> newOrder(@RequestBody Order order, ServerWebExchange exchange) {
+		order.setStatus(Status.IN_PROGRESS);
+		return orderRepository.insert(order)
+				.flatMap(newOrder -> assembler.toModel(newOrder, exchange))
+				.map(orderModel -> ResponseEntity
+						.created(orderModel.getRequiredLink(IanaLinkRelations.SELF).toUri())
+						.body(orderModel));
+	}
+	
+	@DeleteMapping("/orders/{id}/cancel")
+	public Mono<ResponseEntity<?>> cancel(@PathVariable Long id, ServerWebExchange exchange) {
+		return transition(id, Status.CANCELLED, "cancel", exchange);
+	}
+	
+	@PutMapping("/orders/{id}/complete")
+	public Mono<ResponseEntity<?>> complete(@PathVariable Long id, ServerWebExchange exchange) {
+		return transition(id, Status.COMPLETED, "complete", exchange);
+	}
+	
+	//transition() runs the conditional UPDATE; one updated row returns the order with OK status, otherwise the order is
+	//read to tell a missing order (exception) from an order that is not IN_PROGRESS anymore (405 with a Problem);
+	private Mono<ResponseEntity<?>> transition(Long id, Status status, String action, ServerWebExchange exchange) {
+		return orderRepository.transition(id, Status.IN_PROGRESS, status)
+				.flatMap(rows -> findOrder(id).flatMap(order -> {
+					if(rows == 1) {
+						return assembler.toModel(order, exchange).map(orderModel -> (ResponseEntity<?>) ResponseEntity.ok(orderModel));
+					}
+					return Mono.just(methodNotAllowed(action, order));
+				}));
+	}
+	
+	private static ResponseEntity<?> methodNotAllowed(String action, Order order) {
+		return ResponseEntity
+				.status(HttpStatus.METHOD_NOT_ALLOWED)
+				.header(HttpHeaders.CONTENT_TYPE, MediaTypes.HTTP_PROBLEM_DETAILS_JSON_VALUE)
+				.body(Problem.create()
+						.withTitle("Method not allowed")
+						.withDetail("You can't " + action + " an order that is in the " + order.getStatus() + " status"));
+	}
+	
+	private Mono<Order> findOrder(Long id) {
+		return orderRepository.findById(id).switchIfEmpty(Mono.error(() -> new OrderNotFoundException(id)));
+	}
+}
@@ -0,0 +1,71 @@
+package com.rest.spring.reactive;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.hateoas.server.reactive.ReactiveRepresentationModelAssembler;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.rest.spring.model.KeysetSlice;
+import com.rest.spring.model.LinkTemplate;
+import com.rest.spring.model.Order;
+import com.rest.spring.model.Status;
+
+import reactor.core.publisher.Mono;
+
+//ReactiveOrderModelAssembler is the reactive version of OrderModelAssembler; see ReactiveEmployeeModelAssembler;
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveOrderModelAssembler implements ReactiveRepresentationModelAssembler<Order, EntityModel<Order>> {
+	
+	private static final LinkTemplate ONE = LinkTemplate.of(ReactiveOrderController.class, "one", Long.class,
+			ServerWebExchange.class);
+	private static final LinkTemplate ALL = LinkTemplate.of(ReactiveOrderController.class, "all", Long.class, Long.class,
+			Integer.class, Status.class, ServerWebExchange.class);
+	private static final LinkTemplate CANCEL = LinkTemplate.of(ReactiveOrderController.class, "cancel", Long.class,
+			ServerWebExchange.class);
+	private static final LinkTemplate COMPLETE = LinkTemplate.of(ReactiveOrderController.class, "complete", Long.class,
+			ServerWebExchange.class);
+	
+	@Override
+	public Mono<EntityModel<Order>> toModel(Order order, ServerWebExchange exchange) {
+		return Mono.just(toModel(order, ReactiveLinks.baseUri(exchange)));
+	}
+	
+	//toPagedModel() converts one keyset page into a CollectionModel; the status filter is kept in the links of the page;
+	public CollectionModel<EntityModel<Order>> toPagedModel(KeysetSlice<Order> slice, Long after, Long before, int size,
+			Status status, ServerWebExchange exchange) {
+		
+		String baseUri = ReactiveLinks.baseUri(exchange);
+		List<EntityModel<Order>> orders = slice.getContent().stream()
+				.map(order -> toModel(order, baseUri))
+				.collect(Collectors.toList());
+		
+		CollectionModel<EntityModel<Order>> model = CollectionModel.of(orders,
+				ReactiveLinks.page(ALL, baseUri, IanaLinkRelations.SELF, after, before, size, status));
+		if(slice.hasNext()) {
+			model.add(ReactiveLinks.page(ALL, baseUri, IanaLinkRelations.NEXT, slice.getLast().getId(), null, size, status));
+		}
+		if(slice.hasPrevious()) {
+			model.add(ReactiveLinks.page(ALL, baseUri, IanaLinkRelations.PREV, null, slice.getFirst().getId(), size, status));
+		}
+		return model;
+	}
+	
+	EntityModel<Order> toModel(Order order, String baseUri) {
+		EntityModel<Order> orderModel = EntityModel.of(order,
+				ONE.expand(baseUri, order.getId(), IanaLinkRelations.SELF),
+				ALL.toLink(baseUri, LinkRelation.of("orders")));
+		if(order.getStatus() == Status.IN_PROGRESS) {
+			orderModel.add(CANCEL.expand(baseUri, order.getId(), LinkRelation.of("cancel")));
+			orderModel.add(COMPLETE.expand(baseUri, order.getId(), LinkRelation.of("complete")));
+		}
+		return orderModel;
+	}
+}
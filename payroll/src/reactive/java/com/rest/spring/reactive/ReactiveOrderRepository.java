@@ -0,0 +1,109 @@
+package com.rest.spring.reactive;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.stereotype.Repository;
+
+import com.rest.spring.model.Order;
+import com.rest.spring.model.Status;
+
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+//ReactiveOrderRepository reads and writes the CUSTOMER_ORDER table through R2DBC; see ReactiveEmployeeRepository;
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveOrderRepository {
+	
+	private static final String COLUMNS = "SELECT id, description, status FROM customer_order ";
+	
+	private final DatabaseClient client;
+	
+	public ReactiveOrderRepository(DatabaseClient client) {
+		this.client = client;
+	}
+	
+	public Flux<Order> findAll() {
+		return client.sql(COLUMNS + "ORDER BY id").map(ReactiveOrderRepository::toOrder).all();
+	}
+	
+	public Mono<Order> findById(Long id) {
+		return client.sql(COLUMNS + "WHERE id = :id").bind("id", id).map(ReactiveOrderRepository::toOrder).one();
+	}
+	
+	//keyset pagination, with an optional status filter, like OrderRepository;
+	public Flux<Order> findByIdGreaterThan(Status status, Long id, int limit) {
+		return page("id > :id", "ORDER BY id", status, id, limit);
+	}
+	
+	public Flux<Order> findByIdLessThan(Status status, Long id, int limit) {
+		return page("id < :id", "ORDER BY id DESC", status, id, limit);
+	}
+	
+	private Flux<Order> page(String cursor, String orderBy, Status status, Long id, int limit) {
+		if(status == null) {
+			return client.sql(COLUMNS + "WHERE " + cursor + " " + orderBy + " LIMIT :limit")
+					.bind("id", id).bind("limit", limit)
+					.map(ReactiveOrderRepository::toOrder).all();
+		}
+		return client.sql(COLUMNS + "WHERE status = :status AND " + cursor + " " + orderBy + " LIMIT :limit")
+				.bind("status", status.name()).bind("id", id).bind("limit", limit)
+				.map(ReactiveOrderRepository::toOrder).all();
+	}
+	
+	//countGroupByStatus() counts the orders of every status in one query; a status without orders has 0;
+	public Mono<Map<Status, Long>> countGroupByStatus() {
+		return client.sql("SELECT status, COUNT(*) AS total FROM customer_order GROUP BY status")
+				.map((row, metadata) -> Map.entry(Status.valueOf(row.get("status", String.class)), row.get("total", Long.class)))
+				.all()
+				.reduceWith(ReactiveOrderRepository::zeroCounts, (map, count) -> {
+					map.put(count.getKey(), count.getValue());
+					return map;
+				});
+	}
+	
+	private static Map<Status, Long> zeroCounts() {
+		Map<Status, Long> counts = new EnumMap<>(Status.class);
+		for(Status status : Status.values()) {
+			counts.put(status, 0L);
+		}
+		return counts;
+	}
+	
+	//insert() takes a new id from CUSTOMER_ORDER_SEQ; the version starts at 0, as Hibernate does;
+	public Mono<Order> insert(Order order) {
+		return client.sql("SELECT NEXT VALUE FOR customer_order_seq").map(row -> row.get(0, Long.class)).one()
+				.flatMap(id -> description(client.sql("INSERT INTO customer_order (id, description, status, version) "
+						+ "VALUES (:id, :description, :status, 0)"), order.getDescription())
+						.bind("id", id)
+						.bind("status", order.getStatus().name())
+						.fetch().rowsUpdated()
+						.map(rows -> {
+							order.setId(id);
+							return order;
+						}));
+	}
+	
+	//transition() is the same conditional UPDATE as OrderRepository.transition(); it returns the number of updated rows;
+	public Mono<Long> transition(Long id, Status expected, Status status) {
+		return client.sql("UPDATE customer_order SET status = :status, version = version + 1 WHERE id = :id AND status = :expected")
+				.bind("status", status.name()).bind("id", id).bind("expected", expected.name())
+				.fetch().rowsUpdated();
+	}
+	
+	private static GenericExecuteSpec description(GenericExecuteSpec spec, String description) {
+		return description != null ? spec.bind("description", description) : spec.bindNull("description", String.class);
+	}
+	
+	private static Order toOrder(Row row, RowMetadata metadata) {
+		Order order = new Order(row.get("description", String.class), Status.valueOf(row.get("status", String.class)));
+		order.setId(row.get("id", Long.class));
+		return order;
+	}
+}
@@ -0,0 +1,278 @@
+package com.rest.spring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import com.rest.spring.model.Employee;
+import com.rest.spring.model.KeysetSlice;
+import com.rest.spring.model.Order;
+import com.rest.spring.model.Status;
+import com.rest.spring.repository.EmployeeRepository;
+import com.rest.spring.repository.OrderRepository;
+
+//PayrollLoadTest starts the application on a random port, seeds the H2 database and drives a mix of the endpoints
+//from many concurrent clients; the latency of each operation is recorded in a HdrHistogram;
+//p50/p99/p999 and the throughput are printed, and the full distributions are written to target/load-test/*.hgrm;
+//the admission control is off: all the clients come from the same address, and the test measures the endpoints;
+@Tag("load")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = "payroll.admission.enabled=false")
+class PayrollLoadTest {
+	
+	private static final int CLIENTS = Integer.getInteger("load.clients", 32);
+	private static final int SECONDS = Integer.getInteger("load.seconds", 30);
+	private static final int SEED = Integer.getInteger("load.seed", 10_000);
+	
+	private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+	
+	//the operations of the mix and how many of every 100 requests they are;
+	enum Operation {
+		LIST_EMPLOYEES(20), //
+		GET_EMPLOYEE(25), //
+		NEW_EMPLOYEE(10), //
+		REPLACE_EMPLOYEE(10), //
+		DELETE_EMPLOYEE(5), //
+		NEW_ORDER(15), //
+		COMPLETE_ORDER(8), //
+		CANCEL_ORDER(7);
+		
+		final int weight;
+		
+		Operation(int weight) {
+			this.weight = weight;
+		}
+	}
+	
+	@LocalServerPort
+	private int port;
+	
+	//the execution mode of the server (profile "virtual"), printed with the results so the two modes can be compared;
+	@Value("${spring.threads.virtual.enabled:false}")
+	private boolean virtualThreads;
+	
+	@Autowired
+	private EmployeeRepository employeeRepository;
+	
+	@Autowired
+	private OrderRepository orderRepository;
+	
+	private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+	
+	//histograms of latency in microseconds, up to one minute, with 3 significant digits;
+	private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+	private final AtomicLong errors = new AtomicLong();
+	
+	@BeforeEach
+	void seed() {
+		List<Employee> employees = new ArrayList<>(SEED);
+		List<Order> orders = new ArrayList<>(SEED);
+		for(int i = 0; i < SEED; i++) {
+			employees.add(new Employee("First" + i, "Last" + i, "Role" + (i % 10)));
+			orders.add(new Order("Order " + i, Status.values()[i % Status.values().length]));
+		}
+		employeeRepository.saveAll(employees);
+		orderRepository.saveAll(orders);
+		
+		for(Operation operation : Operation.values()) {
+			histograms.put(operation, new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3));
+		}
+	}
+	
+	@Test
+	void mixedLoad() throws Exception {
+		
+		long firstEmployee = employeeRepository.findByIdGreaterThan(Long.MIN_VALUE, KeysetSlice.ascending(1)).get(0).getId();
+		
+		ExecutorService pool = Executors.newFixedThreadPool(CLIENTS);
+		long start = System.nanoTime();
+		long end = start + TimeUnit.SECONDS.toNanos(SECONDS);
+		for(int i = 0; i < CLIENTS; i++) {
+			pool.execute(() -> runClient(end, firstEmployee));
+		}
+		pool.shutdown();
+		pool.awaitTermination(SECONDS + 60, TimeUnit.SECONDS);
+		double elapsed = (System.nanoTime() - start) / 1e9;
+		
+		report(elapsed);
+		assertEquals(0, errors.get(), "unexpected responses");
+	}
+	
+	//runClient() sends requests until the end; every client deletes, completes and cancels only what it created itself,
+	//so every request of the mix has a defined expected status;
+	private void runClient(long end, long firstEmployee) {
+		
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		List<Long> ownEmployees = new ArrayList<>();
+		List<Long> ownOrders = new ArrayList<>();
+		
+		while(System.nanoTime() < end) {
+			Operation operation = pick(random.nextInt(100));
+			try {
+				switch(operation) {
+				case LIST_EMPLOYEES:
+					send(operation, get("/employees?size=20&after=" + (firstEmployee + random.nextInt(SEED))), 200);
+					break;
+				case GET_EMPLOYEE:
+					send(operation, get("/employees/" + (firstEmployee + random.nextInt(SEED))), 200);
+					break;
+				case NEW_EMPLOYEE:
+					ownEmployees.add(id(send(operation, post("/employees", employeeJson(random)), 201)));
+					break;
+				case REPLACE_EMPLOYEE:
+					if(ownEmployees.isEmpty()) {
+						continue;
+					}
+					send(operation, put("/employees/" + ownEmployees.get(random.nextInt(ownEmployees.size())), employeeJson(random)), 200);
+					break;
+				case DELETE_EMPLOYEE:
+					if(ownEmployees.isEmpty()) {
+						continue;
+					}
+					send(operation, delete("/employees/" + ownEmployees.remove(ownEmployees.size() - 1)), 204);
+					break;
+				case NEW_ORDER:
+					ownOrders.add(id(send(operation, put("/orders", "{\"description\":\"load " + random.nextInt() + "\"}"), 201)));
+					break;
+				case COMPLETE_ORDER:
+					if(ownOrders.isEmpty()) {
+						continue;
+					}
+					send(operation, put("/orders/" + ownOrders.remove(ownOrders.size() - 1) + "/complete", ""), 200);
+					break;
+				case CANCEL_ORDER:
+					if(ownOrders.isEmpty()) {
+						continue;
+					}
+					send(operation, delete("/orders/" + ownOrders.remove(ownOrders.size() - 1) + "/cancel"), 200);
+					break;
+				}
+			} catch (IOException e) {
+				//an unexpected status or a failed request;
+				errors.incrementAndGet();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+	
+	private static Operation pick(int percent) {
+		int sum = 0;
+		for(Operation operation : Operation.values()) {
+			sum += operation.weight;
+			if(percent < sum) {
+				return operation;
+			}
+		}
+		return Operation.GET_EMPLOYEE;
+	}
+	
+	//send() records the latency of the request in the histogram of the operation and counts an unexpected status as an error;
+	private String send(Operation operation, HttpRequest request, int expected) throws IOException, InterruptedException {
+		long start = System.nanoTime();
+		HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+		histograms.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+		if(response.statusCode() != expected) {
+			throw new IOException(operation + " returned " + response.statusCode() + ": " + response.body());
+		}
+		return response.body();
+	}
+	
+	private HttpRequest get(String path) {
+		return builder(path).GET().build();
+	}
+	
+	private HttpRequest post(String path, String json) {
+		return builder(path).POST(HttpRequest.BodyPublishers.ofString(json)).build();
+	}
+	
+	private HttpRequest put(String path, String json) {
+		return builder(path).PUT(HttpRequest.BodyPublishers.ofString(json)).build();
+	}
+	
+	private HttpRequest delete(String path) {
+		return builder(path).DELETE().build();
+	}
+	
+	private HttpRequest.Builder builder(String path) {
+		return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+				.header("Content-Type", "application/json")
+				.header("Accept", "application/hal+json")
+				.timeout(Duration.ofSeconds(30));
+	}
+	
+	private static String employeeJson(ThreadLocalRandom random) {
+		return "{\"firstName\":\"Load\",\"lastName\":\"Test" + random.nextInt(1000) + "\",\"role\":\"Tester\"}";
+	}
+	
+	private static Long id(String body) throws IOException {
+		Matcher matcher = ID.matcher(body);
+		if(!matcher.find()) {
+			throw new IOException("No id in " + body);
+		}
+		return Long.valueOf(matcher.group(1));
+	}
+	
+	//report() prints the percentiles (in milliseconds) and the throughput of every operation and of the whole mix,
+	//and writes every distribution in the HdrHistogram text format, which can be plotted and compared between builds;
+	private void report(double elapsed) throws IOException {
+		Path directory = Paths.get("target", "load-test");
+		Files.createDirectories(directory);
+		
+		Histogram total = new Histogram(TimeUnit.MINUTES.toMicros(1), 3);
+		System.out.printf("%n%-18s %10s %10s %10s %10s %12s%n", "operation", "count", "p50 ms", "p99 ms", "p999 ms", "req/s");
+		for(Map.Entry<Operation, Histogram> entry : histograms.entrySet()) {
+			Histogram histogram = entry.getValue();
+			total.add(histogram);
+			print(entry.getKey().name(), histogram, elapsed);
+			write(directory.resolve(entry.getKey().name().toLowerCase() + ".hgrm"), histogram);
+		}
+		print("TOTAL", total, elapsed);
+		write(directory.resolve("total.hgrm"), total);
+		System.out.printf("%s threads, %d clients, %.1f s, %d errors%n%n", virtualThreads ? "virtual" : "platform", CLIENTS,
+				elapsed, errors.get());
+	}
+	
+	private static void print(String name, Histogram histogram, double elapsed) {
+		System.out.printf("%-18s %10d %10.2f %10.2f %10.2f %12.1f%n", name, histogram.getTotalCount(),
+				histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0,
+				histogram.getValueAtPercentile(99.9) / 1000.0, histogram.getTotalCount() / elapsed);
+	}
+	
+	private static void write(Path file, Histogram histogram) throws IOException {
+		try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+			histogram.outputPercentileDistribution(out, 1000.0);
+		}
+	}
+}
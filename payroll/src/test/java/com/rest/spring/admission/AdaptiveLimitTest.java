@@ -0,0 +1,85 @@
+package com.rest.spring.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+//AdaptiveLimitTest drives the limit with explicit latencies and times: it starts at 4, between 2 and 8, with a
+//tolerance of twice the lowest latency of a window of one second;
+class AdaptiveLimitTest {
+
+	private static final long WINDOW = TimeUnit.SECONDS.toNanos(1);
+	private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+	private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+	private final AdaptiveLimit limit = new AdaptiveLimit(4, 2, 8, 2.0, WINDOW, 0);
+
+	@Test
+	void noMoreThanLimitRequestsAreInFlight() {
+		for(int i = 0; i < 4; i++) {
+			assertThat(limit.tryAcquire()).isTrue();
+		}
+		assertThat(limit.tryAcquire()).isFalse();
+		assertThat(limit.getInFlight()).isEqualTo(4);
+	}
+
+	@Test
+	void fastRequestsWithHalfOfTheLimitInUseIncreaseItByOne() {
+		limit.tryAcquire();
+		limit.tryAcquire();
+
+		limit.release(FAST, 1);
+		assertThat(limit.getLimit()).isEqualTo(5);
+
+		//one request in flight out of five is less than half: the limit is not used, it does not grow;
+		limit.release(FAST, 2);
+		assertThat(limit.getLimit()).isEqualTo(5);
+		assertThat(limit.getInFlight()).isZero();
+	}
+
+	@Test
+	void theLimitGrowsUpToMax() {
+		for(int i = 0; i < 20; i++) {
+			while(limit.tryAcquire()) {
+			}
+			while(limit.getInFlight() > 0) {
+				limit.release(FAST, i);
+			}
+		}
+		assertThat(limit.getLimit()).isEqualTo(8);
+	}
+
+	@Test
+	void slowRequestsDecreaseTheLimitDownToMin() {
+		limit.tryAcquire();
+		limit.release(FAST, 1);
+		assertThat(limit.getLimit()).isEqualTo(4);
+
+		limit.tryAcquire();
+		limit.release(SLOW, 2);
+		assertThat(limit.getLimit()).isEqualTo(3);
+
+		for(int i = 0; i < 5; i++) {
+			limit.tryAcquire();
+			limit.release(SLOW, 3 + i);
+		}
+		assertThat(limit.getLimit()).isEqualTo(2);
+	}
+
+	@Test
+	void theLowestLatencyIsMeasuredAgainInEveryWindow() {
+		limit.tryAcquire();
+		limit.release(FAST, 1);
+
+		//in the next window the database got slower: the first latency is the new lowest one, not a slow request;
+		limit.tryAcquire();
+		limit.tryAcquire();
+		limit.release(SLOW, WINDOW + 1);
+		assertThat(limit.getLimit()).isEqualTo(5);
+
+		limit.release(SLOW, WINDOW + 2);
+		assertThat(limit.getLimit()).isEqualTo(5);
+	}
+}
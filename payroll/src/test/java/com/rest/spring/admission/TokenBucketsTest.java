@@ -0,0 +1,68 @@
+package com.rest.spring.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+//TokenBucketsTest drives the buckets with explicit times: 10 tokens per second (one every 100ms) with bursts of 3;
+class TokenBucketsTest {
+
+	private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+
+	private final TokenBuckets buckets = new TokenBuckets(4, 10, 3);
+
+	@Test
+	void aFullBucketTakesABurstThenWaitsForTheRefill() {
+		long now = TimeUnit.SECONDS.toNanos(1);
+
+		assertThat(buckets.tryAcquire("client", now)).isZero();
+		assertThat(buckets.tryAcquire("client", now)).isZero();
+		assertThat(buckets.tryAcquire("client", now)).isZero();
+		assertThat(buckets.tryAcquire("client", now)).isEqualTo(INTERVAL);
+		assertThat(buckets.tryAcquire("client", now + INTERVAL / 2)).isEqualTo(INTERVAL / 2);
+
+		assertThat(buckets.tryAcquire("client", now + INTERVAL)).isZero();
+		assertThat(buckets.tryAcquire("client", now + INTERVAL)).isEqualTo(INTERVAL);
+	}
+
+	@Test
+	void theRefillNeverExceedsTheBurst() {
+		long now = TimeUnit.SECONDS.toNanos(1);
+		assertThat(buckets.tryAcquire("client", now)).isZero();
+
+		//a minute idle refills the bucket up to burst tokens, not more;
+		long later = now + TimeUnit.MINUTES.toNanos(1);
+		assertThat(buckets.tryAcquire("client", later)).isZero();
+		assertThat(buckets.tryAcquire("client", later)).isZero();
+		assertThat(buckets.tryAcquire("client", later)).isZero();
+		assertThat(buckets.tryAcquire("client", later)).isEqualTo(INTERVAL);
+	}
+
+	@Test
+	void everyClientHasItsOwnBucket() {
+		long now = TimeUnit.SECONDS.toNanos(1);
+		for(int i = 0; i < 3; i++) {
+			assertThat(buckets.tryAcquire("first", now)).isZero();
+		}
+		assertThat(buckets.tryAcquire("first", now)).isPositive();
+
+		assertThat(buckets.tryAcquire("second", now)).isZero();
+		assertThat(buckets.size()).isEqualTo(2);
+	}
+
+	@Test
+	void sweepForgetsTheFullBucketsOnly() {
+		long now = TimeUnit.SECONDS.toNanos(1);
+		buckets.tryAcquire("idle", now);
+		for(int i = 0; i < 3; i++) {
+			buckets.tryAcquire("busy", now + 2 * INTERVAL);
+		}
+
+		buckets.sweep(now + 2 * INTERVAL);
+
+		assertThat(buckets.size()).isEqualTo(1);
+		assertThat(buckets.tryAcquire("busy", now + 2 * INTERVAL)).isPositive();
+	}
+}
@@ -0,0 +1,76 @@
+package com.rest.spring.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.rest.spring.model.Order;
+import com.rest.spring.model.Status;
+import com.rest.spring.repository.OrderRepository;
+
+//CacheConfigurationTest checks that the eviction of a transition is applied when its transaction commits, not before,
+//and that a read that started before an eviction does not put its row back after it;
+@SpringBootTest(properties = "payroll.admission.enabled=false")
+class CacheConfigurationTest {
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void transitionEvictsTheOrderAfterTheCommit() {
+		Long id = orderRepository.save(new Order("cached", Status.IN_PROGRESS)).getId();
+		Cache orders = cacheManager.getCache("orders");
+		orderRepository.findById(id);
+		assertThat(orders.get(id)).isNotNull();
+
+		new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+			assertThat(orderRepository.transition(id, Status.IN_PROGRESS, Status.COMPLETED)).isEqualTo(1);
+			//not committed yet: the entry is still there;
+			assertThat(orders.get(id)).isNotNull();
+		});
+
+		assertThat(orders.get(id)).isNull();
+		assertThat(orderRepository.findById(id)).map(Order::getStatus).contains(Status.COMPLETED);
+	}
+
+	@Test
+	void readStartedBeforeAnEvictionIsNotCached() {
+		Cache employees = cacheManager.getCache("employees");
+		//the miss of a reader, which then loads the old row;
+		assertThat(employees.get(-1L)).isNull();
+		//a writer commits and evicts the entry;
+		employees.evict(-1L);
+		//the reader puts the old row: ignored;
+		employees.put(-1L, "old");
+		assertThat(employees.get(-1L)).isNull();
+		//the next reader loads the new row and caches it;
+		employees.put(-1L, "new");
+		assertThat(employees.get(-1L)).extracting(Cache.ValueWrapper::get).isEqualTo("new");
+	}
+
+	@Test
+	void saveEvictsTheOrderAfterTheCommit() {
+		Order order = orderRepository.save(new Order("saved", Status.IN_PROGRESS));
+		Cache orders = cacheManager.getCache("orders");
+		orderRepository.findById(order.getId());
+		assertThat(orders.get(order.getId())).isNotNull();
+
+		order.setDescription("renamed");
+		orderRepository.save(order);
+
+		assertThat(orders.get(order.getId())).isNull();
+		assertThat(orderRepository.findById(order.getId())).map(Order::getDescription).contains("renamed");
+	}
+}
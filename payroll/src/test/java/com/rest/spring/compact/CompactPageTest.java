@@ -0,0 +1,34 @@
+package com.rest.spring.compact;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.test.web.servlet.MockMvc;
+
+//CompactPageTest checks that the compact representation of the employees leaves out the full name, which the HAL one keeps;
+@SpringBootTest(properties = "payroll.admission.enabled=false")
+@AutoConfigureMockMvc
+class CompactPageTest {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Test
+	void compactEmployeesHaveNoFullName() throws Exception {
+		mvc.perform(get("/employees").accept(CompactMediaTypes.COMPACT_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.content[0].firstName").exists())
+				.andExpect(jsonPath("$.content[0].lastName").exists())
+				.andExpect(jsonPath("$.content[0].name").doesNotExist());
+
+		mvc.perform(get("/employees").accept(MediaTypes.HAL_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$._embedded.employeeList[0].name").exists());
+	}
+}
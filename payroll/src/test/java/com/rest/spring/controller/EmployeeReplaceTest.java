@@ -0,0 +1,71 @@
+package com.rest.spring.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.rest.spring.etag.EntityTags;
+import com.rest.spring.model.Employee;
+import com.rest.spring.repository.EmployeeRepository;
+
+//EmployeeReplaceTest checks the preconditions of PUT /employees/{id}: If-Match with the current ETag replaces the employee,
+//a stale one or any If-Match on an employee that does not exist is 412 and changes nothing;
+@SpringBootTest(properties = "payroll.admission.enabled=false")
+@AutoConfigureMockMvc
+class EmployeeReplaceTest {
+
+	private static final String BODY = "{\"firstName\":\"Samwise\",\"lastName\":\"Gamgee\",\"role\":\"gardener\"}";
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private EmployeeRepository repository;
+
+	@Test
+	void ifMatchOnAMissingEmployeeIsPreconditionFailed() throws Exception {
+		long count = repository.count();
+
+		mvc.perform(put("/employees/{id}", Long.MAX_VALUE).header(HttpHeaders.IF_MATCH, "\"0\"")
+				.contentType(MediaType.APPLICATION_JSON).content(BODY))
+				.andExpect(status().isPreconditionFailed());
+		mvc.perform(put("/employees/{id}", Long.MAX_VALUE).header(HttpHeaders.IF_MATCH, "*")
+				.contentType(MediaType.APPLICATION_JSON).content(BODY))
+				.andExpect(status().isPreconditionFailed());
+
+		assertThat(repository.count()).isEqualTo(count);
+	}
+
+	@Test
+	void withoutIfMatchAMissingEmployeeIsCreated() throws Exception {
+		long count = repository.count();
+
+		mvc.perform(put("/employees/{id}", Long.MAX_VALUE).contentType(MediaType.APPLICATION_JSON).content(BODY))
+				.andExpect(status().isOk())
+				.andExpect(header().exists(HttpHeaders.ETAG));
+
+		assertThat(repository.count()).isEqualTo(count + 1);
+	}
+
+	@Test
+	void ifMatchReplacesOnlyTheCurrentVersion() throws Exception {
+		Employee employee = repository.save(new Employee("Frodo", "Baggins", "ring-bearer"));
+		String current = EntityTags.of(employee.getVersion());
+
+		mvc.perform(put("/employees/{id}", employee.getId()).header(HttpHeaders.IF_MATCH, current)
+				.contentType(MediaType.APPLICATION_JSON).content(BODY))
+				.andExpect(status().isOk());
+		mvc.perform(put("/employees/{id}", employee.getId()).header(HttpHeaders.IF_MATCH, current)
+				.contentType(MediaType.APPLICATION_JSON).content(BODY))
+				.andExpect(status().isPreconditionFailed());
+	}
+}
@@ -0,0 +1,120 @@
+package com.rest.spring.controller;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.endsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.rest.spring.model.Order;
+import com.rest.spring.model.Status;
+import com.rest.spring.repository.OrderRepository;
+
+//OrderPagingTest walks the keyset pages of GET /orders: the first page, a page in the middle, the last one, an empty one,
+//the prev links and the status filter with a cursor; the orders of each test are created by it, after all the others,
+//so the pages after the first of them only hold its own orders;
+@SpringBootTest(properties = "payroll.admission.enabled=false")
+@AutoConfigureMockMvc
+class OrderPagingTest {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	//the ids of the five orders of the test, in ascending order: IN_PROGRESS, CANCELLED, IN_PROGRESS, CANCELLED, IN_PROGRESS;
+	private final List<Long> ids = new ArrayList<>();
+
+	@BeforeEach
+	void createOrders() {
+		for(int i = 0; i < 5; i++) {
+			ids.add(orderRepository.save(new Order("order " + i, i % 2 == 0 ? Status.IN_PROGRESS : Status.CANCELLED)).getId());
+		}
+	}
+
+	@Test
+	void firstPageHasNextButNoPrev() throws Exception {
+		mvc.perform(get("/orders").param("size", "1").accept(MediaTypes.HAL_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$._embedded.orderList.length()").value(1))
+				.andExpect(jsonPath("$._links.next.href").exists())
+				.andExpect(jsonPath("$._links.prev").doesNotExist());
+	}
+
+	@Test
+	void middlePageHasNextAndPrev() throws Exception {
+		mvc.perform(get("/orders").param("after", ids.get(0).toString()).param("size", "2").accept(MediaTypes.HAL_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$._embedded.orderList[*].id").value(contains(ids(1, 2))))
+				.andExpect(jsonPath("$._links.next.href").value(endsWith("/orders?after=" + ids.get(2) + "&size=2")))
+				.andExpect(jsonPath("$._links.prev.href").value(endsWith("/orders?before=" + ids.get(1) + "&size=2")));
+	}
+
+	@Test
+	void prevLinkGoesBackToThePreviousPage() throws Exception {
+		mvc.perform(get("/orders").param("before", ids.get(3).toString()).param("size", "2").accept(MediaTypes.HAL_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$._embedded.orderList[*].id").value(contains(ids(1, 2))))
+				.andExpect(jsonPath("$._links.next.href").value(endsWith("/orders?after=" + ids.get(2) + "&size=2")))
+				.andExpect(jsonPath("$._links.prev.href").value(endsWith("/orders?before=" + ids.get(1) + "&size=2")));
+	}
+
+	@Test
+	void lastPageHasNoNext() throws Exception {
+		mvc.perform(get("/orders").param("after", ids.get(2).toString()).param("size", "2").accept(MediaTypes.HAL_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$._embedded.orderList[*].id").value(contains(ids(3, 4))))
+				.andExpect(jsonPath("$._links.next").doesNotExist())
+				.andExpect(jsonPath("$._links.prev.href").exists());
+	}
+
+	@Test
+	void emptyPageHasNeitherNextNorPrev() throws Exception {
+		mvc.perform(get("/orders").param("after", ids.get(4).toString()).accept(MediaTypes.HAL_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$._embedded").doesNotExist())
+				.andExpect(jsonPath("$._links.self.href").value(endsWith("/orders?after=" + ids.get(4))))
+				.andExpect(jsonPath("$._links.next").doesNotExist())
+				.andExpect(jsonPath("$._links.prev").doesNotExist());
+	}
+
+	@Test
+	void statusFilterIsKeptWithTheCursor() throws Exception {
+		mvc.perform(get("/orders").param("status", "IN_PROGRESS").param("after", ids.get(0).toString()).param("size", "1")
+				.accept(MediaTypes.HAL_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$._embedded.orderList[*].id").value(contains(ids(2))))
+				.andExpect(jsonPath("$._links.next.href")
+						.value(endsWith("/orders?after=" + ids.get(2) + "&size=1&status=IN_PROGRESS")))
+				.andExpect(jsonPath("$._links.prev.href")
+						.value(endsWith("/orders?before=" + ids.get(2) + "&size=1&status=IN_PROGRESS")));
+
+		mvc.perform(get("/orders").param("status", "CANCELLED").param("after", ids.get(1).toString())
+				.accept(MediaTypes.HAL_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$._embedded.orderList[*].id").value(contains(ids(3))))
+				.andExpect(jsonPath("$._links.next").doesNotExist());
+	}
+
+	//ids() returns the ids of the orders at these positions, as the ints or longs jsonPath reads them;
+	private Object[] ids(int... positions) {
+		Object[] values = new Object[positions.length];
+		for(int i = 0; i < positions.length; i++) {
+			long id = ids.get(positions[i]);
+			values[i] = id <= Integer.MAX_VALUE ? (Object) (int) id : (Object) id;
+		}
+		return values;
+	}
+}
@@ -0,0 +1,103 @@
+package com.rest.spring.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import com.rest.spring.etag.EntityTags;
+import com.rest.spring.model.Order;
+import com.rest.spring.model.Status;
+import com.rest.spring.repository.OrderRepository;
+
+//OrderTransitionTest races complete() and cancel() on the same order: the conditional UPDATE lets exactly one of them
+//change the order, the other one gets 405 (the order is not IN_PROGRESS anymore), and the status stays the winner's;
+//with a stale If-Match, a transition of an order still IN_PROGRESS gets 412;
+@SpringBootTest(properties = "payroll.admission.enabled=false")
+@AutoConfigureMockMvc
+class OrderTransitionTest {
+
+	private static final int ROUNDS = 20;
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Test
+	void concurrentCompleteAndCancelChangeTheOrderOnce() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			for(int round = 0; round < ROUNDS; round++) {
+				Long id = orderRepository.save(new Order("race " + round, Status.IN_PROGRESS)).getId();
+				CountDownLatch start = new CountDownLatch(1);
+				Future<Integer> complete = executor.submit(perform(start, put("/orders/{id}/complete", id)));
+				Future<Integer> cancel = executor.submit(perform(start, delete("/orders/{id}/cancel", id)));
+				start.countDown();
+
+				assertThat(List.of(complete.get(), cancel.get())).containsExactlyInAnyOrder(200, 405);
+				Status expected = complete.get() == 200 ? Status.COMPLETED : Status.CANCELLED;
+				assertThat(orderRepository.findById(id)).map(Order::getStatus).contains(expected);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void concurrentTransitionsWithTheSameIfMatchChangeTheOrderOnce() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			for(int round = 0; round < ROUNDS; round++) {
+				Order order = orderRepository.save(new Order("if-match " + round, Status.IN_PROGRESS));
+				String etag = EntityTags.of(order.getVersion());
+				CountDownLatch start = new CountDownLatch(1);
+				Future<Integer> first = executor.submit(perform(start,
+						put("/orders/{id}/complete", order.getId()).header(HttpHeaders.IF_MATCH, etag)));
+				Future<Integer> second = executor.submit(perform(start,
+						put("/orders/{id}/complete", order.getId()).header(HttpHeaders.IF_MATCH, etag)));
+				start.countDown();
+
+				assertThat(List.of(first.get(), second.get())).containsExactlyInAnyOrder(200, 405);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void staleIfMatchIsPreconditionFailed() throws Exception {
+		Order order = orderRepository.save(new Order("stale", Status.IN_PROGRESS));
+		String stale = EntityTags.of(order.getVersion() - 1);
+
+		mvc.perform(delete("/orders/{id}/cancel", order.getId()).header(HttpHeaders.IF_MATCH, stale))
+				.andExpect(status().isPreconditionFailed())
+				.andExpect(jsonPath("$.title").value("Precondition failed"));
+		assertThat(orderRepository.findById(order.getId())).map(Order::getStatus).contains(Status.IN_PROGRESS);
+	}
+
+	//perform() waits for the start signal, so the two requests of a round reach the database together;
+	private Callable<Integer> perform(CountDownLatch start, RequestBuilder request) {
+		return () -> {
+			start.await();
+			return mvc.perform(request).andReturn().getResponse().getStatus();
+		};
+	}
+}
@@ -0,0 +1,142 @@
+package com.rest.spring.idempotency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.rest.spring.model.Order;
+import com.rest.spring.model.Status;
+import com.rest.spring.repository.IdempotencyRecordRepository;
+import com.rest.spring.repository.OrderRepository;
+
+//IdempotencyStoreTest sends PUT /orders with an Idempotency-Key, with the responses kept in the table too: the requests
+//racing with the same key create one order, a key is scoped to its client and to its payload, and a request that fails
+//after its order was saved keeps neither the order nor the key;
+@SpringBootTest(properties = { "payroll.admission.enabled=false", "payroll.idempotency.database=true" })
+@AutoConfigureMockMvc
+class IdempotencyStoreTest {
+
+	private static final int REQUESTS = 8;
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private IdempotencyStore idempotency;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private IdempotencyRecordRepository records;
+
+	@Test
+	void concurrentRequestsWithTheSameKeyCreateOneOrder() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(REQUESTS);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<MockHttpServletResponse>> responses = new ArrayList<>();
+			for(int i = 0; i < REQUESTS; i++) {
+				responses.add(executor.submit(perform(start, newOrder("concurrent", "race"))));
+			}
+			start.countDown();
+
+			List<String> locations = new ArrayList<>();
+			int replayed = 0;
+			for(Future<MockHttpServletResponse> response : responses) {
+				assertThat(response.get().getStatus()).isEqualTo(201);
+				locations.add(response.get().getHeader(HttpHeaders.LOCATION));
+				replayed += response.get().getHeader(IdempotencyStore.REPLAYED) != null ? 1 : 0;
+			}
+			assertThat(locations).containsOnly(locations.get(0));
+			assertThat(replayed).isEqualTo(REQUESTS - 1);
+			assertThat(orders("race")).isEqualTo(1);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void theSameKeyWithAnotherPayloadIsUnprocessable() throws Exception {
+		mvc.perform(newOrder("payload", "first")).andExpect(status().isCreated());
+
+		mvc.perform(newOrder("payload", "second")).andExpect(status().isUnprocessableEntity());
+		assertThat(orders("second")).isZero();
+	}
+
+	@Test
+	void theSameKeyOfAnotherClientIsAnotherRequest() throws Exception {
+		String first = mvc.perform(newOrder("shared", "client").header("X-API-Key", "first"))
+				.andExpect(status().isCreated())
+				.andExpect(header().doesNotExist(IdempotencyStore.REPLAYED))
+				.andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+		String second = mvc.perform(newOrder("shared", "client").header("X-API-Key", "second"))
+				.andExpect(status().isCreated())
+				.andExpect(header().doesNotExist(IdempotencyStore.REPLAYED))
+				.andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+
+		assertThat(second).isNotEqualTo(first);
+		assertThat(orders("client")).isEqualTo(2);
+	}
+
+	@Test
+	void aRequestThatFailsAfterItsInsertKeepsNeitherTheOrderNorTheKey() {
+		Order order = new Order("rolled back", Status.IN_PROGRESS);
+		ServletWebRequest request = new ServletWebRequest(new MockHttpServletRequest());
+		long before = records.count();
+
+		assertThatThrownBy(() -> idempotency.execute("failure", order, request, () -> {
+			orderRepository.save(order);
+			throw new IllegalStateException("the response could not be stored");
+		})).isInstanceOf(IllegalStateException.class);
+
+		assertThat(orders("rolled back")).isZero();
+		assertThat(records.count()).isEqualTo(before);
+
+		ResponseEntity<?> retry = idempotency.execute("failure", order, request,
+				() -> ResponseEntity.status(201).body(orderRepository.save(new Order("rolled back", Status.IN_PROGRESS))));
+		assertThat(retry.getStatusCode().value()).isEqualTo(201);
+		assertThat(orders("rolled back")).isEqualTo(1);
+	}
+
+	private static MockHttpServletRequestBuilder newOrder(String key, String description) {
+		return put("/orders").header(IdempotencyStore.HEADER, key)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"description\":\"" + description + "\"}");
+	}
+
+	//perform() waits for the start signal, so the requests reach the store together;
+	private Callable<MockHttpServletResponse> perform(CountDownLatch start, MockHttpServletRequestBuilder request) {
+		return () -> {
+			start.await();
+			return mvc.perform(request).andReturn().getResponse();
+		};
+	}
+
+	private long orders(String description) {
+		return orderRepository.findAll().stream().filter(order -> description.equals(order.getDescription())).count();
+	}
+}
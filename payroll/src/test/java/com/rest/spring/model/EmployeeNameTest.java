@@ -0,0 +1,77 @@
+package com.rest.spring.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+//EmployeeNameTest checks how setName() splits a full name: the last word is the lastName, the words before it are the
+//firstName, the spaces around and between the words do not count, and a null or blank name clears both parts;
+class EmployeeNameTest {
+
+	@Test
+	void singleWordIsTheFirstName() {
+		Employee employee = named("Ian");
+
+		assertThat(employee.getFirstName()).isEqualTo("Ian");
+		assertThat(employee.getLastName()).isNull();
+		assertThat(employee.getName()).isEqualTo("Ian");
+	}
+
+	@Test
+	void twoWordsAreTheFirstAndLastName() {
+		Employee employee = named("Bilbo Baggins");
+
+		assertThat(employee.getFirstName()).isEqualTo("Bilbo");
+		assertThat(employee.getLastName()).isEqualTo("Baggins");
+		assertThat(employee.getName()).isEqualTo("Bilbo Baggins");
+	}
+
+	@Test
+	void lastWordIsTheLastName() {
+		Employee employee = named("Maria Lucia Almeida");
+
+		assertThat(employee.getFirstName()).isEqualTo("Maria Lucia");
+		assertThat(employee.getLastName()).isEqualTo("Almeida");
+		assertThat(employee.getName()).isEqualTo("Maria Lucia Almeida");
+
+		assertThat(named("a b c")).extracting(Employee::getFirstName, Employee::getLastName).containsExactly("a b", "c");
+	}
+
+	@Test
+	void leadingTrailingAndDoubledSpacesAreIgnored() {
+		Employee employee = named("  Maria   Lucia  Almeida  ");
+
+		assertThat(employee.getFirstName()).isEqualTo("Maria Lucia");
+		assertThat(employee.getLastName()).isEqualTo("Almeida");
+		assertThat(employee.getName()).isEqualTo("Maria Lucia Almeida");
+
+		assertThat(named("  Ian  ")).extracting(Employee::getFirstName, Employee::getLastName).containsExactly("Ian", null);
+	}
+
+	@Test
+	void blankNameClearsBothParts() {
+		for(String blank : new String[] { "", " ", "   " }) {
+			Employee employee = named(blank);
+
+			assertThat(employee.getFirstName()).isNull();
+			assertThat(employee.getLastName()).isNull();
+			assertThat(employee.getName()).isNull();
+		}
+	}
+
+	@Test
+	void nullNameClearsBothParts() {
+		Employee employee = named("Bilbo Baggins");
+		employee.setName(null);
+
+		assertThat(employee.getFirstName()).isNull();
+		assertThat(employee.getLastName()).isNull();
+		assertThat(employee.getName()).isNull();
+	}
+
+	private static Employee named(String name) {
+		Employee employee = new Employee();
+		employee.setName(name);
+		return employee;
+	}
+}
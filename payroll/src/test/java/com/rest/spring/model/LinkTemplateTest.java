@@ -0,0 +1,130 @@
+package com.rest.spring.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.Links;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.WebRequest;
+
+import com.rest.spring.controller.EmployeeController;
+import com.rest.spring.controller.OrderController;
+
+//LinkTemplateTest checks that the links built from the templates are the ones of linkTo(methodOn(...)), for the entities,
+//the collections and the pages, behind a context path and on another host, port and scheme than the defaults;
+class LinkTemplateTest {
+
+	@BeforeEach
+	void bindRequest() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders");
+		request.setScheme("https");
+		request.setServerName("payroll.example.com");
+		request.setServerPort(8443);
+		request.setContextPath("/api");
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+	}
+
+	@AfterEach
+	void unbindRequest() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	void itemLinksAreTheLinksOfMethodOn() {
+		LinkTemplate employee = LinkTemplate.of(EmployeeController.class, "one", Long.class, WebRequest.class);
+		LinkTemplate order = LinkTemplate.of(OrderController.class, "one", Long.class, WebRequest.class);
+		LinkTemplate cancel = LinkTemplate.of(OrderController.class, "cancel", Long.class, WebRequest.class);
+		LinkTemplate complete = LinkTemplate.of(OrderController.class, "complete", Long.class, WebRequest.class);
+
+		assertSameLink(employee.expand(42L, IanaLinkRelations.SELF),
+				linkTo(methodOn(EmployeeController.class).one(42L, null)).withSelfRel());
+		assertSameLink(order.expand(42L, IanaLinkRelations.SELF),
+				linkTo(methodOn(OrderController.class).one(42L, null)).withSelfRel());
+		assertSameLink(cancel.expand(42L, "cancel"),
+				linkTo(methodOn(OrderController.class).cancel(42L, null)).withRel("cancel"));
+		assertSameLink(complete.expand(42L, "complete"),
+				linkTo(methodOn(OrderController.class).complete(42L, null)).withRel("complete"));
+		assertThat(order.expand(42L, IanaLinkRelations.SELF).getHref())
+				.isEqualTo("https://payroll.example.com:8443/api/orders/42");
+	}
+
+	@Test
+	void collectionLinksAreTheLinksOfMethodOn() {
+		LinkTemplate employees = LinkTemplate.of(EmployeeController.class, "all", Long.class, Long.class, Integer.class, WebRequest.class);
+		LinkTemplate orders = LinkTemplate.of(OrderController.class, "all", Long.class, Long.class, Integer.class, Status.class, WebRequest.class);
+
+		assertSameLink(employees.toLink("employees"),
+				linkTo(methodOn(EmployeeController.class).all(null, null, null, null)).withRel("employees").expand());
+		assertSameLink(orders.toLink("orders"),
+				linkTo(methodOn(OrderController.class).all(null, null, null, null, null)).withRel("orders").expand());
+		assertThat(orders.toLink("orders").getHref()).isEqualTo("https://payroll.example.com:8443/api/orders");
+	}
+
+	@Test
+	void templateModeBuildsTheSameEntityModels() {
+		Order inProgress = new Order(7L, "MacBook Pro", Status.IN_PROGRESS);
+		Order completed = new Order(8L, "iPhone", Status.COMPLETED);
+		Employee employee = new Employee("Bilbo", "Baggins", "burglar");
+		employee.setId(3L);
+
+		assertThat(links(new OrderModelAssembler(true).toModel(inProgress).getLinks()))
+				.isEqualTo(links(new OrderModelAssembler(false).toModel(inProgress).getLinks()));
+		assertThat(links(new OrderModelAssembler(true).toModel(completed).getLinks()))
+				.isEqualTo(links(new OrderModelAssembler(false).toModel(completed).getLinks()));
+		assertThat(links(new EmployeeModelAssembler(true).toModel(employee).getLinks()))
+				.isEqualTo(links(new EmployeeModelAssembler(false).toModel(employee).getLinks()));
+	}
+
+	@Test
+	void pagedModelsHaveTheSameLinksInBothModes() {
+		List<Order> rows = List.of(new Order(11L, "a", Status.IN_PROGRESS), new Order(12L, "b", Status.CANCELLED),
+				new Order(13L, "c", Status.IN_PROGRESS));
+		KeysetSlice<Order> slice = KeysetSlice.forward(rows, 2, true);
+
+		CollectionModel<EntityModel<Order>> templates = new OrderModelAssembler(true).toPagedModel(slice, 10L, null, 2, Status.IN_PROGRESS);
+		CollectionModel<EntityModel<Order>> proxies = new OrderModelAssembler(false).toPagedModel(slice, 10L, null, 2, Status.IN_PROGRESS);
+
+		assertThat(links(templates.getLinks())).isEqualTo(links(proxies.getLinks()));
+		assertThat(templates.getContent().stream().map(model -> links(model.getLinks())).toList())
+				.isEqualTo(proxies.getContent().stream().map(model -> links(model.getLinks())).toList());
+		assertThat(templates.getRequiredLink(IanaLinkRelations.SELF).getHref())
+				.isEqualTo("https://payroll.example.com:8443/api/orders?after=10&size=2&status=IN_PROGRESS");
+		assertThat(templates.getRequiredLink(IanaLinkRelations.NEXT).getHref())
+				.isEqualTo("https://payroll.example.com:8443/api/orders?after=12&size=2&status=IN_PROGRESS");
+		assertThat(templates.getRequiredLink(IanaLinkRelations.PREV).getHref())
+				.isEqualTo("https://payroll.example.com:8443/api/orders?before=11&size=2&status=IN_PROGRESS");
+	}
+
+	@Test
+	void theDefaultSizeIsLeftOutOfThePageLinks() {
+		KeysetSlice<Employee> slice = KeysetSlice.forward(List.of(), KeysetSlice.DEFAULT_SIZE, false);
+
+		CollectionModel<EntityModel<Employee>> model = new EmployeeModelAssembler(true)
+				.toPagedModel(slice, null, null, KeysetSlice.DEFAULT_SIZE);
+
+		assertThat(model.getRequiredLink(IanaLinkRelations.SELF).getHref())
+				.isEqualTo("https://payroll.example.com:8443/api/employees");
+	}
+
+	//links() is what a client sees of the links, their relations and URIs in order;
+	private static List<String> links(Links links) {
+		return links.stream().map(link -> link.getRel().value() + " " + link.getHref()).toList();
+	}
+	
+	private static void assertSameLink(Link template, Link methodOn) {
+		assertThat(template.getHref()).isEqualTo(methodOn.getHref());
+		assertThat(template.getRel()).isEqualTo(methodOn.getRel());
+	}
+}
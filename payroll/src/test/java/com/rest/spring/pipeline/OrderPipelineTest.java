@@ -0,0 +1,82 @@
+package com.rest.spring.pipeline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rest.spring.model.Order;
+import com.rest.spring.model.OrderTask;
+import com.rest.spring.model.Status;
+import com.rest.spring.model.TaskState;
+import com.rest.spring.repository.OrderRepository;
+import com.rest.spring.repository.OrderTaskRepository;
+
+//OrderPipelineTest sends PUT /orders with "Prefer: respond-async": the request only queues the task, without an order;
+//a worker inserts the order IN_PROGRESS (it is not completed, nobody asked for it) and the task then links to it;
+@SpringBootTest(properties = "payroll.admission.enabled=false")
+@AutoConfigureMockMvc
+class OrderPipelineTest {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private OrderTaskRepository taskRepository;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void anAsyncNewOrderIsInsertedByAWorkerInProgress() throws Exception {
+		String body = mvc.perform(put("/orders").header("Prefer", "respond-async")
+				.contentType(MediaType.APPLICATION_JSON).content("{\"description\":\"queued\"}")
+				.accept(MediaTypes.HAL_JSON))
+				.andExpect(status().isAccepted())
+				.andExpect(jsonPath("$.status").value("IN_PROGRESS"))
+				.andExpect(jsonPath("$.description").value("queued"))
+				.andReturn().getResponse().getContentAsString();
+		Long taskId = objectMapper.readTree(body).get("id").asLong();
+
+		OrderTask task = awaitFinished(taskId);
+		assertThat(task.getState()).isEqualTo(TaskState.DONE);
+		assertThat(task.getOrderId()).isNotNull();
+		assertThat(orderRepository.findById(task.getOrderId()))
+				.map(Order::getStatus).contains(Status.IN_PROGRESS);
+		assertThat(orderRepository.findAll().stream().filter(order -> "queued".equals(order.getDescription()))).hasSize(1);
+
+		mvc.perform(get("/orders/tasks/{id}", taskId).accept(MediaTypes.HAL_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.state").value("DONE"))
+				.andExpect(jsonPath("$._links.order.href").exists());
+	}
+
+	private OrderTask awaitFinished(Long taskId) throws InterruptedException {
+		Instant deadline = Instant.now().plus(TIMEOUT);
+		while(Instant.now().isBefore(deadline)) {
+			OrderTask task = taskRepository.findById(taskId).orElseThrow();
+			if(task.getState() != TaskState.PENDING) {
+				return task;
+			}
+			Thread.sleep(50);
+		}
+		throw new AssertionError("The task " + taskId + " is still pending after " + TIMEOUT);
+	}
+}
@@ -0,0 +1,49 @@
+package com.rest.spring.pipeline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.rest.spring.model.Order;
+import com.rest.spring.model.OrderTask;
+import com.rest.spring.model.Status;
+import com.rest.spring.model.TaskState;
+import com.rest.spring.repository.OrderRepository;
+import com.rest.spring.repository.OrderTaskRepository;
+
+//OrderTaskRepositoryTest checks that a finished task keeps its state: a second finish() (another worker, or a retry) does
+//not change it; no worker runs, so none of them finishes the task before the test does;
+@SpringBootTest(properties = { "payroll.admission.enabled=false", "payroll.orders.pipeline.workers=0" })
+class OrderTaskRepositoryTest {
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private OrderTaskRepository taskRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void finishOnlyChangesPendingTasks() {
+		Long orderId = orderRepository.save(new Order("finish", Status.IN_PROGRESS)).getId();
+		Long taskId = taskRepository.save(new OrderTask(orderId, Status.COMPLETED)).getId();
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+		Integer done = transaction.execute(tx -> taskRepository.finish(List.of(taskId), TaskState.DONE, Instant.now()));
+		Integer rejected = transaction.execute(tx -> taskRepository.finish(List.of(taskId), TaskState.REJECTED, Instant.now()));
+
+		assertThat(done).isEqualTo(1);
+		assertThat(rejected).isZero();
+
+		assertThat(taskRepository.findById(taskId)).map(OrderTask::getState).contains(TaskState.DONE);
+	}
+}
@@ -0,0 +1,204 @@
+package com.rest.spring.shard;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import com.rest.spring.model.Order;
+import com.rest.spring.model.Status;
+import com.rest.spring.repository.OrderRepository;
+import com.rest.spring.stream.CsvFormat;
+
+//ShardedOrdersTest runs the profiles "prod" and "sharded" on four H2 databases in memory, migrated by Flyway: a new order
+//is written in the shard of its id, the keyset pages and the stats cover all the shards, a transition works in a shard
+//other than 0, and the exports are written shard after shard, each one by id;
+//the second-level cache of Hibernate is off here: its JCache manager is shared by the contexts of the JVM, and this one
+//is closed after the class (its static number of shards must not stay for the others);
+@SpringBootTest(properties = {
+		"payroll.admission.enabled=false",
+		"spring.datasource.url=" + ShardedOrdersTest.URL + "0" + ShardedOrdersTest.MODE,
+		"payroll.orders.shard-url=" + ShardedOrdersTest.URL + "{shard}" + ShardedOrdersTest.MODE,
+		"spring.datasource.hikari.minimum-idle=1",
+		"spring.jpa.properties.hibernate.cache.use_second_level_cache=false" })
+@ActiveProfiles({ "prod", "sharded" })
+@AutoConfigureMockMvc
+@DirtiesContext
+class ShardedOrdersTest {
+
+	static final String URL = "jdbc:h2:mem:sharded-orders-";
+	static final String MODE = ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH";
+
+	private static final int SHARDS = 4;
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private OrderShards shards;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void newOrdersGoRoundTheShardsAndLiveInTheShardOfTheirId() throws Exception {
+		Set<Integer> used = new HashSet<>();
+		for(int i = 0; i < SHARDS; i++) {
+			long id = newOrder("routed " + i);
+			int shard = (int) (id % SHARDS);
+			used.add(shard);
+
+			assertThat(shards.on(shard, () -> orderRepository.existsById(id))).isTrue();
+			assertThat(shards.on((shard + 1) % SHARDS, () -> orderRepository.existsById(id))).isFalse();
+			mvc.perform(get("/orders/{id}", id).accept(MediaTypes.HAL_JSON))
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$.description").value("routed " + i));
+		}
+		assertThat(used).containsExactlyInAnyOrder(0, 1, 2, 3);
+	}
+
+	@Test
+	void keysetPagesAreMergedByIdAcrossTheShards() throws Exception {
+		List<Long> created = new ArrayList<>();
+		for(int i = 0; i < 2 * SHARDS; i++) {
+			created.add(newOrder("paged " + i));
+		}
+
+		List<Long> walked = new ArrayList<>();
+		List<Long> page = page(get("/orders").param("size", "3"));
+		while(!page.isEmpty()) {
+			walked.addAll(page);
+			page = page(get("/orders").param("after", page.get(page.size() - 1).toString()).param("size", "3"));
+		}
+
+		assertThat(walked).isSorted().doesNotHaveDuplicates().containsAll(created).hasSize((int) total());
+		assertThat(page(get("/orders").param("before", walked.get(3).toString()).param("size", "3")))
+				.containsExactlyElementsOf(walked.subList(0, 3));
+	}
+
+	@Test
+	void statsAddTheCountsOfTheShards() throws Exception {
+		Map<String, Integer> before = stats();
+		long completed = newOrder("counted 0");
+		long cancelled = newOrder("counted 1");
+		newOrder("counted 2");
+		newOrder("counted 3");
+		mvc.perform(put("/orders/{id}/complete", completed)).andExpect(status().isOk());
+		mvc.perform(delete("/orders/{id}/cancel", cancelled)).andExpect(status().isOk());
+
+		Map<String, Integer> after = stats();
+		assertThat(after.get("IN_PROGRESS") - before.get("IN_PROGRESS")).isEqualTo(2);
+		assertThat(after.get("COMPLETED") - before.get("COMPLETED")).isEqualTo(1);
+		assertThat(after.get("CANCELLED") - before.get("CANCELLED")).isEqualTo(1);
+		assertThat(after.values().stream().mapToLong(Integer::longValue).sum()).isEqualTo(total());
+	}
+
+	@Test
+	void transitionsWorkInTheShardOfTheOrder() throws Exception {
+		long id = newOrder("transition");
+		while(id % SHARDS == 0) {
+			id = newOrder("transition");
+		}
+		long order = id;
+		int shard = (int) (order % SHARDS);
+
+		mvc.perform(put("/orders/{id}/complete", order).accept(MediaTypes.HAL_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.status").value("COMPLETED"));
+		assertThat(shards.on(shard, () -> orderRepository.findById(order))).map(Order::getStatus).contains(Status.COMPLETED);
+
+		mvc.perform(delete("/orders/{id}/cancel", order)).andExpect(status().isMethodNotAllowed());
+	}
+
+	@Test
+	void exportsAreWrittenShardAfterShardEachOneById() throws Exception {
+		for(int i = 0; i < SHARDS; i++) {
+			newOrder("exported " + i);
+		}
+
+		List<Long> ids = new ArrayList<>();
+		for(String line : export(MediaType.APPLICATION_NDJSON_VALUE).split("\n")) {
+			ids.add(objectMapper.readTree(line).get("id").asLong());
+		}
+		assertThat(ids).hasSize((int) total());
+		for(int i = 1; i < ids.size(); i++) {
+			long previous = ids.get(i - 1);
+			long current = ids.get(i);
+			assertThat(previous % SHARDS).isLessThanOrEqualTo(current % SHARDS);
+			if(previous % SHARDS == current % SHARDS) {
+				assertThat(previous).isLessThan(current);
+			}
+		}
+
+		String[] csv = export(CsvFormat.TEXT_CSV_VALUE).split("\n");
+		assertThat(csv[0]).isEqualTo("id,description,status");
+		assertThat(csv).hasSize(ids.size() + 1).filteredOn(row -> row.startsWith("id,")).hasSize(1);
+	}
+
+	private long newOrder(String description) throws Exception {
+		String body = mvc.perform(put("/orders").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"description\":\"" + description + "\"}").accept(MediaTypes.HAL_JSON))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body).get("id").asLong();
+	}
+
+	private List<Long> page(MockHttpServletRequestBuilder request) throws Exception {
+		JsonNode body = objectMapper.readTree(mvc.perform(request.accept(MediaTypes.HAL_JSON))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+		List<Long> ids = new ArrayList<>();
+		body.path("_embedded").path("orderList").forEach(order -> ids.add(order.get("id").asLong()));
+		return ids;
+	}
+
+	private Map<String, Integer> stats() throws Exception {
+		return JsonPath.read(mvc.perform(get("/orders/stats")).andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString(), "$");
+	}
+
+	//total() counts the orders of every shard, straight from their databases;
+	private long total() {
+		long total = 0;
+		for(int shard = 0; shard < SHARDS; shard++) {
+			total += shards.on(shard, orderRepository::count);
+		}
+		return total;
+	}
+
+	private String export(String accept) throws Exception {
+		MvcResult started = mvc.perform(get("/orders/export").accept(accept))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		return mvc.perform(asyncDispatch(started))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+	}
+}